@@ -14,6 +14,7 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 public final class Skylands extends JavaPlugin {
@@ -23,6 +24,11 @@ public final class Skylands extends JavaPlugin {
      */
     private CommandManager<CommandSender> commandManager;
 
+    /**
+     * The main {@link DatabaseManager}.
+     */
+    private DatabaseManager databaseManager;
+
     /**
      * The main {@link ItemRegistry}.
      */
@@ -63,10 +69,12 @@ public final class Skylands extends JavaPlugin {
             return;
         }
 
-        final @NonNull DatabaseManager databaseManager = new DatabaseManager(this);
+        saveDefaultConfig();
+
+        databaseManager = new DatabaseManager(this);
 
         itemRegistry = new ItemRegistry();
-        itemManager = new ItemManager(itemRegistry, databaseManager);
+        itemManager = new ItemManager(this, itemRegistry, databaseManager);
 
         registerCommands();
     }
@@ -74,10 +82,17 @@ public final class Skylands extends JavaPlugin {
     /**
      * Handles everything which needs to be done,
      * when the {@link Skylands} plugin is being disabled.
+     * <p>
+     * All database work has to be done within the configured shutdown timeout,
+     * whatever is left afterwards is aborted.
      */
     @Override
     public void onDisable() {
-        saveData();
+        final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(Math.max(1, getConfig().getLong("items.shutdown.timeout", 10)));
+
+        itemManager.close(deadline);
+        databaseManager.close(deadline);
     }
 
     /**
@@ -89,11 +104,4 @@ public final class Skylands extends JavaPlugin {
 
         new CommandExceptionHandler<CommandSender>().apply(commandManager, AudienceProvider.nativeAudience());
     }
-
-    /**
-     * Saves the data of all systems.
-     */
-    private void saveData() {
-        itemManager.saveItems();
-    }
 }
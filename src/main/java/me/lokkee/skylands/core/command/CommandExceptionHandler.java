@@ -5,6 +5,7 @@ import cloud.commandframework.exceptions.InvalidCommandSenderException;
 import cloud.commandframework.exceptions.InvalidSyntaxException;
 import cloud.commandframework.exceptions.NoPermissionException;
 import cloud.commandframework.minecraft.extras.MinecraftExceptionHandler;
+import me.lokkee.skylands.core.database.DatabaseUnavailableException;
 import me.lokkee.skylands.core.utils.Constants;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
@@ -109,11 +110,16 @@ public final class CommandExceptionHandler<C> {
     /**
      * Handles {@link Exception}s of type {@link MinecraftExceptionHandler.ExceptionType#COMMAND_EXECUTION}
      * and returns their error message {@link Component}.
+     * <p>
+     * A {@link DatabaseUnavailableException} shows its own message, since the player can retry later.
      *
      * @param e the Exception which is to be handled
      * @return the message Component which should be output
      */
     private @NonNull Component commandExecutionHandler(final @NonNull Exception e) {
+        if (e.getCause() instanceof DatabaseUnavailableException unavailable) {
+            return Component.text(unavailable.getMessage(), Constants.Text.STYLE_ALERT);
+        }
         return Component.text(
                 "An unexpected error occurred during command execution.", Constants.Text.STYLE_ALERT
         );
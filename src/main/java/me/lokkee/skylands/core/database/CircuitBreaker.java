@@ -0,0 +1,134 @@
+package me.lokkee.skylands.core.database;
+
+import me.lokkee.skylands.Skylands;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The circuit breaker of the database access.
+ * <p>
+ * After a number of consecutive failures the circuit opens, and all database access fails fast
+ * instead of waiting for the connection timeout. Periodic health checks close it again,
+ * which notifies all recovery listeners.
+ */
+public final class CircuitBreaker {
+
+    /**
+     * The main plugin instance of {@link Skylands}.
+     */
+    private final @NonNull Skylands skylands;
+
+    /**
+     * The amount of consecutive failures, which opens the circuit.
+     */
+    private final int failureThreshold;
+
+    /**
+     * All listeners, which are run once the circuit closes again.
+     */
+    private final @NonNull List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The current {@link State} of the circuit.
+     */
+    private @NonNull State state = State.CLOSED;
+
+    /**
+     * The amount of consecutive failures.
+     */
+    private int failures;
+
+    /**
+     * Constructs a {@link CircuitBreaker}.
+     *
+     * @param skylands         the main plugin instance of {@link Skylands}
+     * @param failureThreshold the amount of consecutive failures, which opens the circuit
+     */
+    public CircuitBreaker(final @NonNull Skylands skylands, final int failureThreshold) {
+        this.skylands = skylands;
+        this.failureThreshold = Math.max(1, failureThreshold);
+    }
+
+    /**
+     * Checks whether the database may be accessed.
+     *
+     * @return false if the circuit is open
+     */
+    public synchronized boolean allowRequest() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Gets the current {@link State} of the circuit.
+     *
+     * @return the State
+     */
+    public synchronized @NonNull State getState() {
+        return state;
+    }
+
+    /**
+     * Records a successful database access, which closes the circuit if it was open.
+     */
+    public void recordSuccess() {
+        synchronized (this) {
+            failures = 0;
+
+            if (state == State.CLOSED) {
+                return;
+            }
+            state = State.CLOSED;
+        }
+        skylands.getLogger().info("The database is reachable again, the circuit breaker is closed.");
+
+        for (final @NonNull Runnable listener : recoveryListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Records a failed database access, which opens the circuit once the failure threshold is reached.
+     *
+     * @param e the cause of the failure
+     */
+    public void recordFailure(final @NonNull Throwable e) {
+        synchronized (this) {
+            if (state == State.OPEN || ++failures < failureThreshold) {
+                return;
+            }
+            state = State.OPEN;
+        }
+        skylands.getLogger().warning(String.format(
+                "The database failed %d times in a row (%s), the circuit breaker is open.",
+                failureThreshold,
+                e.getMessage()
+        ));
+    }
+
+    /**
+     * Adds a listener, which is run on the health check thread once the circuit closes again.
+     *
+     * @param listener the listener which is to be added
+     */
+    public void onRecovery(final @NonNull Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    /**
+     * The states of a {@link CircuitBreaker}.
+     */
+    public enum State {
+
+        /**
+         * The database is healthy and may be accessed.
+         */
+        CLOSED,
+
+        /**
+         * The database is unhealthy and all access fails fast until a health check succeeds.
+         */
+        OPEN
+    }
+}
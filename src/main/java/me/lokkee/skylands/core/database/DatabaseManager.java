@@ -3,26 +3,92 @@ package me.lokkee.skylands.core.database;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import me.lokkee.skylands.Skylands;
+import org.bukkit.Bukkit;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.h2.api.ErrorCode;
+import org.h2.tools.Upgrade;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.Driver;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 /**
  * The manager for everything database related.
  */
 public final class DatabaseManager {
 
+    /**
+     * The settings of the embedded H2 database, which runs in its MySQL mode,
+     * so the same SQL can be used for both types.
+     */
+    private static final @NonNull String EMBEDDED_SETTINGS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE";
+
+    /**
+     * The settings, which only H2 2 understands.
+     * <p>
+     * The schema names a column value, which is a keyword since H2 2.
+     */
+    private static final @NonNull String EMBEDDED_SETTINGS_V2 = ";NON_KEYWORDS=VALUE";
+
     /**
      * The main plugin instance of {@link Skylands}.
      */
     private final @NonNull Skylands skylands;
 
     /**
-     * The main {@link HikariDataSource}.
+     * The configured {@link DatabaseType}.
+     */
+    private final @NonNull DatabaseType type;
+
+    /**
+     * The main {@link HikariDataSource}, or null if the {@link DatabaseType#MEMORY} type is used.
+     */
+    private final @Nullable HikariDataSource dataSource;
+
+    /**
+     * The {@link HikariDataSource} of the read replica, or null if none is configured.
+     */
+    private final @Nullable HikariDataSource readDataSource;
+
+    /**
+     * The time in milliseconds, which reads wait for the read replica to catch up,
+     * before they fall back to the primary, or -1 if the lag is not checked.
+     */
+    private final long maxLagWait;
+
+    /**
+     * The {@link CircuitBreaker}, which guards all connections to the primary.
+     */
+    private final @NonNull CircuitBreaker circuitBreaker;
+
+    /**
+     * The bounded {@link ExecutorService}, which runs all blocking database work.
+     */
+    private final @NonNull ThreadPoolExecutor executor;
+
+    /**
+     * The single writer thread, which runs the ordered writes in the background,
+     * so they are never rejected like the work of the bounded executor.
      */
-    private final @NonNull HikariDataSource dataSource;
+    private final @NonNull ExecutorService writeExecutor;
 
     /**
      * Constructs the {@link DatabaseManager}.
@@ -32,32 +98,373 @@ public final class DatabaseManager {
     public DatabaseManager(final @NonNull Skylands skylands) {
         this.skylands = skylands;
 
-        setupProperties();
+        type = DatabaseType.valueOf(skylands.getConfig().getString("database.type", "mysql").toUpperCase(Locale.ROOT));
 
-        final @NonNull HikariConfig config = new HikariConfig(skylands.getDataFolder() + "/database.properties");
+        final int threads = Math.max(1, skylands.getConfig().getInt("database.io.threads", 4));
+        final int queueSize = Math.max(1, skylands.getConfig().getInt("database.io.queue-size", 1000));
+        final @NonNull AtomicInteger threadCount = new AtomicInteger();
 
-        dataSource = new HikariDataSource(config);
+        executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> new Thread(runnable, "Skylands I/O #" + threadCount.incrementAndGet())
+        );
+        executor.allowCoreThreadTimeOut(true);
+        writeExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "Skylands Writer"));
+
+        maxLagWait = Math.max(-1, skylands.getConfig().getLong("database.replica.max-lag-wait", 5000));
+
+        final @NonNull Properties properties = type == DatabaseType.MYSQL ? loadProperties() : new Properties();
+        final @Nullable Properties readProperties = createReadProperties(properties);
+
+        dataSource = switch (type) {
+            case MYSQL -> new HikariDataSource(new HikariConfig(properties));
+            case H2 -> new HikariDataSource(createEmbeddedConfig(threads));
+            case MEMORY -> null;
+        };
+        readDataSource = readProperties != null ? new HikariDataSource(new HikariConfig(readProperties)) : null;
+
+        skylands.getLogger().info("Using the " + type.toString().toLowerCase(Locale.ROOT) + " database.");
+
+        if (readDataSource != null) {
+            skylands.getLogger().info("Using a read replica for bulk reads.");
+        }
+
+        if (type == DatabaseType.MEMORY) {
+            skylands.getLogger().warning("The memory database does not persist anything across restarts.");
+        }
+        circuitBreaker = new CircuitBreaker(
+                skylands,
+                skylands.getConfig().getInt("database.circuit-breaker.failure-threshold", 3)
+        );
+        if (dataSource != null) {
+            final long interval = Math.max(1, skylands.getConfig().getLong("database.circuit-breaker.health-check-interval", 5)) * 20;
+
+            Bukkit.getScheduler().runTaskTimerAsynchronously(skylands, this::checkHealth, interval, interval);
+        }
+    }
+
+    /**
+     * Checks whether the primary is reachable again, while the {@link CircuitBreaker} is open.
+     */
+    private void checkHealth() {
+        if (dataSource == null || circuitBreaker.allowRequest()) {
+            return;
+        }
+        try (final @NonNull Connection connection = dataSource.getConnection()) {
+            if (connection.isValid(5)) {
+                circuitBreaker.recordSuccess();
+            }
+        } catch (final @NonNull SQLException e) {
+            skylands.getLogger().fine("The database health check failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the {@link HikariConfig} of the embedded H2 database in the plugin folder.
+     * <p>
+     * The database runs in its MySQL mode, so the same SQL can be used for both types.
+     * A database of an older version is upgraded first.
+     *
+     * @param threads the amount of threads of the database executor
+     * @return the HikariConfig
+     */
+    private @NonNull HikariConfig createEmbeddedConfig(final int threads) {
+        final @NonNull HikariConfig config = new HikariConfig();
+        final @NonNull String path = new File(skylands.getDataFolder(), "skylands").getAbsolutePath();
+
+        upgradeEmbeddedDatabase(path);
+
+        config.setPoolName("Skylands H2");
+        config.setDriverClassName("org.h2.Driver");
+        config.setJdbcUrl("jdbc:h2:" + path + EMBEDDED_SETTINGS + EMBEDDED_SETTINGS_V2);
+        config.setMaximumPoolSize(threads + 2);
+        return config;
+    }
+
+    /**
+     * Upgrades the embedded H2 database, if it was written by H2 1.4.200,
+     * which older versions of the plugin bundled.
+     * <p>
+     * H2 2 cannot open these files. So H2 1.4.200, which H2 fetches for this, exports the database
+     * to an SQL script, which is then imported into a new database. The new database only
+     * replaces the old one, once it is complete. The old one is kept as backup.
+     *
+     * @param path the absolute path of the database without its file extension
+     */
+    private void upgradeEmbeddedDatabase(final @NonNull String path) {
+        final @NonNull Path database = Path.of(path + ".mv.db");
+
+        if (!Files.exists(database)) {
+            return;
+        }
+        try (final @NonNull Connection ignored = new org.h2.Driver()
+                .connect("jdbc:h2:" + path + EMBEDDED_SETTINGS + EMBEDDED_SETTINGS_V2, new Properties())) {
+            return;
+        } catch (final @NonNull SQLException e) {
+            if (e.getErrorCode() != ErrorCode.FILE_VERSION_ERROR_1) {
+                throw new RuntimeException(e);
+            }
+        }
+        skylands.getLogger().info("Upgrading the embedded database to H2 2, this may take a while.");
+
+        final @NonNull Path script = Path.of(path + ".upgrade.sql");
+        final @NonNull Path upgraded = Path.of(path + ".upgrade.mv.db");
+        final @NonNull Path backup = Path.of(path + ".h2-1.4.200.mv.db");
+
+        try {
+            Files.deleteIfExists(upgraded);
+
+            final @NonNull Driver legacyDriver = Upgrade.loadH2(200);
+
+            try (final @NonNull Connection connection = legacyDriver.connect("jdbc:h2:" + path + EMBEDDED_SETTINGS, new Properties());
+                 final @NonNull Statement statement = connection.createStatement()) {
+                statement.execute("SCRIPT TO '" + script.toString().replace("'", "''") + "'");
+            } finally {
+                Upgrade.unloadH2(legacyDriver);
+            }
+            try (final @NonNull Connection connection = new org.h2.Driver()
+                    .connect("jdbc:h2:" + path + ".upgrade" + EMBEDDED_SETTINGS + EMBEDDED_SETTINGS_V2, new Properties());
+                 final @NonNull Statement statement = connection.createStatement()) {
+                statement.execute("RUNSCRIPT FROM '" + script.toString().replace("'", "''") + "' FROM_1X");
+                statement.execute("SHUTDOWN");
+            }
+            Files.move(database, backup);
+            Files.move(upgraded, database);
+            Files.delete(script);
+        } catch (final @NonNull IOException | SQLException | ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to upgrade the embedded database to H2 2.", e);
+        }
+        skylands.getLogger().info("Upgraded the embedded database to H2 2, the old one was kept as " + backup.getFileName() + ".");
     }
 
     /**
      * Sets up the database properties {@link File} and loads it.
+     *
+     * @return the loaded {@link Properties}
      */
     @SuppressWarnings("ResultOfMethodCallIgnored")
-    private void setupProperties() {
+    private @NonNull Properties loadProperties() {
         final @NonNull File propertiesFile = new File(skylands.getDataFolder(), "database.properties");
 
         if (!propertiesFile.exists()) {
             propertiesFile.getParentFile().mkdirs();
             skylands.saveResource("database.properties", false);
         }
+        final @NonNull Properties properties = new Properties();
+
+        try (final @NonNull Reader reader = Files.newBufferedReader(propertiesFile.toPath())) {
+            properties.load(reader);
+        } catch (final @NonNull IOException e) {
+            throw new RuntimeException(e);
+        }
+        return properties;
     }
 
     /**
-     * Gets the {@link Connection} of the {@link HikariDataSource}.
+     * Splits the properties of the read replica off the database properties.
+     * <p>
+     * The read replica is configured by the properties with the "read." prefix,
+     * all others are shared with the primary, unless they are overridden.
+     *
+     * @param properties the database {@link Properties}, from which the read properties are removed
+     * @return the Properties of the read replica, or null if it has no jdbcUrl
+     */
+    private static @Nullable Properties createReadProperties(final @NonNull Properties properties) {
+        final @NonNull Properties readProperties = new Properties();
+
+        for (final @NonNull String key : properties.stringPropertyNames()) {
+            if (key.startsWith("read.")) {
+                readProperties.setProperty(key.substring(5), properties.getProperty(key));
+                properties.remove(key);
+            }
+        }
+        if (readProperties.getProperty("jdbcUrl", "").isBlank()) {
+            return null;
+        }
+        for (final @NonNull String key : properties.stringPropertyNames()) {
+            readProperties.putIfAbsent(key, properties.getProperty(key));
+        }
+        readProperties.putIfAbsent("poolName", "Skylands Replica");
+        readProperties.setProperty("readOnly", "true");
+        return readProperties;
+    }
+
+    /**
+     * Gets the configured {@link DatabaseType}.
+     *
+     * @return the DatabaseType
+     */
+    public @NonNull DatabaseType getType() {
+        return type;
+    }
+
+    /**
+     * Gets a {@link Connection} to the primary database, which all writes
+     * and all reads that must see them go to.
+     * <p>
+     * While the {@link CircuitBreaker} is open, this fails fast instead of waiting for the connection timeout.
+     * A failure to get a connection is recorded in the CircuitBreaker. Successes are only recorded
+     * by the callers once their statements completed, as a connection alone proves little.
      *
      * @return the Connection
+     * @throws SQLException if the {@link DatabaseType#MEMORY} type is used, the circuit
+     *                      is open or no connection could be established
+     */
+    public @NonNull Connection getWriteConnection() throws SQLException {
+        if (dataSource == null) {
+            throw new SQLException("The memory database has no connections.");
+        }
+        if (!circuitBreaker.allowRequest()) {
+            throw new SQLTransientConnectionException("The database is unavailable, the circuit breaker is open.");
+        }
+        try {
+            return dataSource.getConnection();
+        } catch (final @NonNull SQLException e) {
+            circuitBreaker.recordFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the {@link CircuitBreaker}, which guards all connections to the primary.
+     *
+     * @return the CircuitBreaker
+     */
+    public @NonNull CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Gets a {@link Connection} for bulk reads, which goes to the read replica if one is configured.
+     * <p>
+     * The {@link LagCheck} is retried until the replica caught up or the configured maximum lag wait
+     * passed, after which the primary is used instead. Without a replica, the primary is used right away.
+     * <p>
+     * If the thread is interrupted while waiting, the interrupt flag is restored and the primary is used,
+     * as a replica which did not catch up must never be read.
+     *
+     * @param lagCheck the LagCheck, which tells whether the replica has caught up
+     * @return the Connection
+     * @throws SQLException if the {@link DatabaseType#MEMORY} type is used
+     */
+    public @NonNull Connection getReadConnection(final @NonNull LagCheck lagCheck) throws SQLException {
+        if (readDataSource == null) {
+            return getWriteConnection();
+        }
+        final long deadline = System.currentTimeMillis() + maxLagWait;
+
+        try {
+            while (true) {
+                final @NonNull Connection connection = readDataSource.getConnection();
+                final boolean caughtUp;
+
+                try {
+                    caughtUp = maxLagWait < 0 || lagCheck.isCaughtUp(connection);
+                } catch (final @NonNull SQLException e) {
+                    connection.close();
+                    throw e;
+                }
+                if (caughtUp) {
+                    return connection;
+                }
+                connection.close();
+
+                if (System.currentTimeMillis() >= deadline) {
+                    break;
+                }
+                Thread.sleep(Math.min(100, Math.max(1, deadline - System.currentTimeMillis())));
+            }
+        } catch (final @NonNull SQLException e) {
+            skylands.getLogger().log(Level.WARNING, "The read replica is unavailable, reading from the primary.", e);
+            return getWriteConnection();
+        } catch (final @NonNull InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return getWriteConnection();
+        }
+        skylands.getLogger().warning(String.format(
+                "The read replica did not catch up within %d ms, reading from the primary.",
+                maxLagWait
+        ));
+        return getWriteConnection();
+    }
+
+    /**
+     * Gets the bounded {@link Executor}, which runs all blocking database work.
+     * <p>
+     * Tasks are rejected once its queue is full.
+     *
+     * @return the database Executor
+     */
+    public @NonNull Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the single writer {@link Executor}, which runs the ordered writes in the background.
+     * <p>
+     * Its queue is unbounded, as every write has to be run exactly once and in order.
+     *
+     * @return the writer Executor
      */
-    public @NonNull Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+    public @NonNull Executor getWriteExecutor() {
+        return writeExecutor;
+    }
+
+    /**
+     * Waits for all queued database work until the shutdown deadline, aborts what is left
+     * and closes the {@link HikariDataSource}, if there is one.
+     *
+     * @param deadline the {@link System#nanoTime()} of the shutdown deadline
+     */
+    public void close(final long deadline) {
+        executor.shutdown();
+        writeExecutor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+                    || !writeExecutor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                skylands.getLogger().warning("The database work did not finish before the shutdown deadline and was aborted.");
+            }
+        } catch (final @NonNull InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        abort();
+    }
+
+    /**
+     * Aborts all database work at once.
+     * <p>
+     * Queued work is dropped, running work is interrupted and the {@link HikariDataSource}s are closed,
+     * which aborts the connections in use, so their open transactions are rolled back.
+     */
+    public void abort() {
+        executor.shutdownNow();
+        writeExecutor.shutdownNow();
+
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        if (readDataSource != null) {
+            readDataSource.close();
+        }
+    }
+
+    /**
+     * Checks whether the read replica has caught up with the primary.
+     */
+    @FunctionalInterface
+    public interface LagCheck {
+
+        /**
+         * Checks whether the read replica has caught up with the primary.
+         *
+         * @param connection the {@link Connection} to the read replica
+         * @return whether the replica has caught up
+         */
+        boolean isCaughtUp(@NonNull Connection connection) throws SQLException;
     }
 }
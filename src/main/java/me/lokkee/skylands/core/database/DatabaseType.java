@@ -0,0 +1,20 @@
+package me.lokkee.skylands.core.database;
+
+/**
+ * Holds all the types of database, which the data can be stored in.
+ */
+public enum DatabaseType {
+
+    /**
+     * A MySQL server, configured in the database.properties file.
+     */
+    MYSQL,
+    /**
+     * An embedded H2 file database in the plugin folder, which needs no database server.
+     */
+    H2,
+    /**
+     * No database at all, nothing is persisted across restarts.
+     */
+    MEMORY
+}
@@ -0,0 +1,22 @@
+package me.lokkee.skylands.core.database;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Thrown if a change is rejected, because the database is unreachable
+ * and no further changes can be buffered until it is reachable again,
+ * or if a lookup is rejected, because the database is too busy to take it.
+ * <p>
+ * Its message is meant to be shown to the player, who made the change.
+ */
+public final class DatabaseUnavailableException extends IllegalStateException {
+
+    /**
+     * Constructs a {@link DatabaseUnavailableException}.
+     *
+     * @param message the message, which is shown to the player
+     */
+    public DatabaseUnavailableException(final @NonNull String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,57 @@
+package me.lokkee.skylands.core.database;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A numbered migration of the database schema.
+ *
+ * @param version     the version, which the schema has after the migration
+ * @param description the description of the migration
+ * @param action      the {@link Action}, which applies the migration
+ */
+public record Migration(
+        int version,
+        @NonNull String description,
+        @NonNull Action action
+) {
+
+    /**
+     * Creates a {@link Migration}, which executes SQL statements in order.
+     *
+     * @param version     the version, which the schema has after the migration
+     * @param description the description of the migration
+     * @param statements  the SQL statements of the migration
+     * @return the Migration
+     */
+    public static @NonNull Migration of(
+            final int version,
+            final @NonNull String description,
+            final @NonNull String... statements
+    ) {
+        return new Migration(version, description, connection -> {
+            try (final @NonNull Statement statement = connection.createStatement()) {
+                for (final @NonNull String sql : statements) {
+                    statement.executeUpdate(sql);
+                }
+            }
+        });
+    }
+
+    /**
+     * The action, which applies a {@link Migration}.
+     */
+    @FunctionalInterface
+    public interface Action {
+
+        /**
+         * Applies the {@link Migration}.
+         *
+         * @param connection the {@link Connection} on which the Migration is applied
+         */
+        void apply(@NonNull Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,152 @@
+package me.lokkee.skylands.core.database;
+
+import me.lokkee.skylands.Skylands;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Applies numbered {@link Migration}s to the database schema at startup.
+ * <p>
+ * The current version of the schema is tracked in the schema_version table.
+ * On MySQL, a named lock prevents several servers from migrating at the same time.
+ * The embedded database is only ever opened by a single server.
+ */
+public final class SchemaMigrator {
+
+    /**
+     * The name of the lock, which is held while migrating.
+     */
+    private static final @NonNull String LOCK_NAME = "skylands_schema";
+
+    /**
+     * The main plugin instance of {@link Skylands}.
+     */
+    private final @NonNull Skylands skylands;
+
+    /**
+     * The main {@link DatabaseManager} instance.
+     */
+    private final @NonNull DatabaseManager databaseManager;
+
+    /**
+     * Constructs the {@link SchemaMigrator}.
+     *
+     * @param skylands        the main plugin instance of {@link Skylands}
+     * @param databaseManager the main {@link DatabaseManager} instance
+     */
+    public SchemaMigrator(
+            final @NonNull Skylands skylands,
+            final @NonNull DatabaseManager databaseManager
+    ) {
+        this.skylands = skylands;
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Applies all {@link Migration}s, whose version is newer than the current schema version.
+     *
+     * @param migrations the Migrations which are to be applied
+     */
+    public void migrate(final @NonNull List<Migration> migrations) {
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection()) {
+            try (final @NonNull Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version ("
+                        + "version INT NOT NULL PRIMARY KEY, "
+                        + "description VARCHAR(255) NOT NULL, "
+                        + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+            }
+            lock(connection);
+
+            try {
+                int version = currentVersion(connection);
+
+                for (final @NonNull Migration migration : migrations.stream()
+                        .sorted(Comparator.comparingInt(Migration::version))
+                        .toList()
+                ) {
+                    if (migration.version() <= version) {
+                        continue;
+                    }
+                    migration.action().apply(connection);
+
+                    try (final @NonNull PreparedStatement ps =
+                                 connection.prepareStatement(
+                                         "INSERT INTO schema_version (version, description) VALUES(?, ?)"
+                                 )
+                    ) {
+                        ps.setInt(1, migration.version());
+                        ps.setString(2, migration.description());
+                        ps.executeUpdate();
+                    }
+                    version = migration.version();
+
+                    skylands.getLogger().info(String.format(
+                            "Migrated the database schema to version %d: %s",
+                            version,
+                            migration.description()
+                    ));
+                }
+            } finally {
+                unlock(connection);
+            }
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Gets the current version of the schema.
+     *
+     * @param connection the {@link Connection} to the database
+     * @return the current schema version, or 0 if no migration was applied yet
+     */
+    private int currentVersion(final @NonNull Connection connection) throws SQLException {
+        try (final @NonNull Statement statement = connection.createStatement();
+             final @NonNull ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version")
+        ) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Acquires the named migration lock, waiting for other servers to finish migrating.
+     *
+     * @param connection the {@link Connection} which is to hold the lock
+     */
+    private void lock(final @NonNull Connection connection) throws SQLException {
+        if (databaseManager.getType() != DatabaseType.MYSQL) {
+            return;
+        }
+        try (final @NonNull PreparedStatement ps = connection.prepareStatement("SELECT GET_LOCK(?, 60)")) {
+            ps.setString(1, LOCK_NAME);
+
+            try (final @NonNull ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the schema migration lock.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the named migration lock.
+     *
+     * @param connection the {@link Connection} which holds the lock
+     */
+    private void unlock(final @NonNull Connection connection) throws SQLException {
+        if (databaseManager.getType() != DatabaseType.MYSQL) {
+            return;
+        }
+        try (final @NonNull PreparedStatement ps = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        }
+    }
+}
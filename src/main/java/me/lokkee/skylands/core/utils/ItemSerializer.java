@@ -6,11 +6,11 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import java.util.Base64;
 
 /**
- * Serializes an {@link ItemStack} to a {@link Base64}
+ * Serializes an {@link ItemStack} to bytes or a {@link Base64}
  * String or deserializes it back.
  *
  * @author LOKKEE
- * @version 1.0
+ * @version 1.1
  */
 public final class ItemSerializer {
 
@@ -33,4 +33,49 @@ public final class ItemSerializer {
     public static @NonNull ItemStack ItemStackFromBase64(final @NonNull String data) {
         return ItemStack.deserializeBytes(Base64.getDecoder().decode(data));
     }
+
+    /**
+     * Serializes an {@link ItemStack} to its binary form.
+     *
+     * @param itemStack the ItemStack to be serialized
+     * @return the bytes of the provided ItemStack
+     */
+    public static byte @NonNull [] ItemStackToBytes(final @NonNull ItemStack itemStack) {
+        return itemStack.serializeAsBytes();
+    }
+
+    /**
+     * Deserializes the binary form of an {@link ItemStack}.
+     * <p>
+     * Also accepts the ASCII bytes of the legacy {@link Base64} form.
+     *
+     * @param data the bytes to be deserialized to an ItemStack
+     * @return the ItemStack created from the bytes
+     */
+    public static @NonNull ItemStack ItemStackFromBytes(final byte @NonNull [] data) {
+        return ItemStack.deserializeBytes(isBase64(data) ? Base64.getDecoder().decode(data) : data);
+    }
+
+    /**
+     * Checks whether bytes are the ASCII bytes of the legacy {@link Base64} form.
+     * <p>
+     * The binary form always starts with the GZIP magic number
+     * and compressed forms start with a format header byte,
+     * neither of which is a Base64 character.
+     *
+     * @param data the bytes which are to be checked
+     * @return whether the bytes are Base64 text
+     */
+    public static boolean isBase64(final byte @NonNull [] data) {
+        if (data.length == 0) {
+            return false;
+        }
+        final byte first = data[0];
+
+        return (first >= 'A' && first <= 'Z')
+                || (first >= 'a' && first <= 'z')
+                || (first >= '0' && first <= '9')
+                || first == '+'
+                || first == '/';
+    }
 }
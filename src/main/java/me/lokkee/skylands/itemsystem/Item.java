@@ -51,9 +51,17 @@ public final class Item {
     protected @NonNull Rarity rarity;
 
     /**
-     * The {@link ItemStack} of the Item.
+     * The {@link LazyItemStack} of the Item.
      */
-    protected @NonNull ItemStack itemStack;
+    protected @NonNull LazyItemStack itemStack;
+
+    /**
+     * The version of the stored row of the Item, which its state is based on.
+     * <p>
+     * Every write of the Item checks and increments it, so concurrent
+     * writes of several servers are detected instead of being lost.
+     */
+    protected long version;
 
     /**
      * Constructs an Item.
@@ -64,6 +72,18 @@ public final class Item {
      * @param itemStack the {@link ItemStack} of the Item
      */
     public Item(final @NonNull String id, final @NonNull ItemType type, final @NonNull Rarity rarity, final @NonNull ItemStack itemStack) {
+        this(id, type, rarity, LazyItemStack.of(itemStack));
+    }
+
+    /**
+     * Constructs an Item, whose {@link ItemStack} may only be deserialized once it is used.
+     *
+     * @param id        the unique String id of the Item
+     * @param type      the {@link ItemType} of the Item
+     * @param rarity    the {@link Rarity} of the Item
+     * @param itemStack the {@link LazyItemStack} of the Item
+     */
+    public Item(final @NonNull String id, final @NonNull ItemType type, final @NonNull Rarity rarity, final @NonNull LazyItemStack itemStack) {
         this.id = id;
         this.type = type;
         this.rarity = rarity;
@@ -74,6 +94,7 @@ public final class Item {
      * Gets the final build {@link ItemStack} with all the data and styles.
      */
     public final @NonNull ItemStack getBuildItemStack() {
+        final @NonNull ItemStack itemStack = this.itemStack.get();
         final @NonNull ItemBuilder item = ItemBuilder.from(itemStack);
 
         item.name(rarity.applyColor(Objects.requireNonNull(itemStack.getItemMeta().displayName())));
@@ -165,7 +186,7 @@ public final class Item {
      * @return the Items ItemStack
      */
     public @NonNull ItemStack getItemStack() {
-        return itemStack.clone();
+        return itemStack.get().clone();
     }
 
     /**
@@ -174,9 +195,55 @@ public final class Item {
      * @param itemStack the ItemStack to be set
      */
     public void setItemStack(final @NonNull ItemStack itemStack) {
+        this.itemStack = this.itemStack.replace(itemStack);
+    }
+
+    /**
+     * Sets the {@link LazyItemStack} of the Item, which may still be kept as bytes.
+     *
+     * @param itemStack the LazyItemStack to be set
+     */
+    public void setItemStack(final @NonNull LazyItemStack itemStack) {
         this.itemStack = itemStack;
     }
 
+    /**
+     * Gets the serialized bytes of the {@link ItemStack} of the Item,
+     * without deserializing it if it is still kept as bytes.
+     *
+     * @return the serialized bytes of the ItemStack
+     */
+    public byte @NonNull [] getItemStackBytes() {
+        return itemStack.getBytes();
+    }
+
+    /**
+     * Gets the {@link LazyItemStack} of the Item.
+     *
+     * @return the LazyItemStack
+     */
+    public @NonNull LazyItemStack getLazyItemStack() {
+        return itemStack;
+    }
+
+    /**
+     * Gets the version of the stored row of the Item, which its state is based on.
+     *
+     * @return the version of the Item
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the stored row of the Item, which its state is based on.
+     *
+     * @param version the version to be set
+     */
+    public void setVersion(final long version) {
+        this.version = version;
+    }
+
     /**
      * Gets all {@link ItemStat}s of the Item.
      *
@@ -231,6 +298,6 @@ public final class Item {
      * @return the plain String name
      */
     public @NonNull String getName() {
-        return PlainTextComponentSerializer.plainText().serialize(Objects.requireNonNull(itemStack.getItemMeta().displayName()));
+        return PlainTextComponentSerializer.plainText().serialize(Objects.requireNonNull(itemStack.get().getItemMeta().displayName()));
     }
 }
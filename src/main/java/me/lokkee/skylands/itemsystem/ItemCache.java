@@ -0,0 +1,379 @@
+package me.lokkee.skylands.itemsystem;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A bounded read-through cache of {@link Item}s, for catalogs which do not fit into memory.
+ * <p>
+ * Only the ids of all Items are resident in the {@link ItemRegistry}. The Items themselves are loaded
+ * from the store on demand, and the least recently used ones are evicted once the capacity is exceeded.
+ * Items which are pinned, because they have changes that are not yet written, are never evicted.
+ * <p>
+ * The cache is safe to use from any thread. Loads do not hold its lock while the store is read,
+ * and Items which were put or removed in the meantime take precedence over the loaded ones.
+ * Evicting is left to {@link #trim()} on the main thread, as only there it is known which Items
+ * are pinned, and an Item which the main thread is about to change is never evicted beneath it.
+ */
+public final class ItemCache {
+
+    /**
+     * The loaded {@link Item}s by their id, from the least to the most recently used.
+     */
+    private final @NonNull Map<String, Item> items = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The maximum amount of loaded Items, which are kept.
+     */
+    private final int capacity;
+
+    /**
+     * The maximum amount of Items, which are loaded at once.
+     */
+    private final int batchSize;
+
+    /**
+     * The {@link Function}, which loads the stored Items of some ids.
+     */
+    private final @NonNull Function<Collection<String>, List<Item>> loader;
+
+    /**
+     * The {@link Predicate}, which tests whether an Item must not be evicted.
+     */
+    private final @NonNull Predicate<String> pinned;
+
+    /**
+     * Whether the last change of an id while a load was running was a removal, by the id,
+     * or none if no load is running.
+     */
+    private final @NonNull Map<String, Boolean> invalidated = new HashMap<>();
+
+    /**
+     * The amount of loads, which are currently reading the store.
+     */
+    private int loading;
+
+    /**
+     * The amount of requested Items, which were loaded already.
+     */
+    private long hits;
+
+    /**
+     * The amount of requested Items, which had to be loaded.
+     */
+    private long misses;
+
+    /**
+     * The amount of loads from the store.
+     */
+    private long loads;
+
+    /**
+     * The amount of evicted Items.
+     */
+    private long evictions;
+
+    /**
+     * Constructs an {@link ItemCache}.
+     *
+     * @param capacity  the maximum amount of loaded Items, which are kept
+     * @param batchSize the maximum amount of Items, which are loaded at once
+     * @param loader    the {@link Function}, which loads the stored Items of some ids
+     * @param pinned    the {@link Predicate}, which tests on the main thread whether an Item must not be evicted
+     */
+    public ItemCache(
+            final int capacity,
+            final int batchSize,
+            final @NonNull Function<Collection<String>, List<Item>> loader,
+            final @NonNull Predicate<String> pinned
+    ) {
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.loader = loader;
+        this.pinned = pinned;
+    }
+
+    /**
+     * Keeps an {@link Item} loaded.
+     * <p>
+     * Must be called on the main thread.
+     *
+     * @param item the Item which is to be kept
+     */
+    public synchronized void put(final @NonNull Item item) {
+        items.put(item.getId(), item);
+
+        if (loading > 0) {
+            invalidated.put(item.getId(), false);
+        }
+        evict();
+    }
+
+    /**
+     * Removes an {@link Item} from the loaded Items.
+     *
+     * @param id the id of the Item which is to be removed
+     */
+    public synchronized void remove(final @NonNull String id) {
+        items.remove(id);
+
+        if (loading > 0) {
+            invalidated.put(id, true);
+        }
+    }
+
+    /**
+     * Gets some existing {@link Item}s, of which all that are not loaded yet are loaded in batches.
+     * <p>
+     * The loads block the calling thread, but not the cache. The loaded Items are kept
+     * without evicting others, until the cache is trimmed on the main thread.
+     *
+     * @param requested the ids of the Items, which are registered
+     * @return the Items in the order of their ids, without the ones which are not stored
+     */
+    public @NonNull List<Item> getAll(final @NonNull Collection<String> requested) {
+        final @NonNull Map<String, Item> found = new HashMap<>();
+        @NonNull List<String> missing = new ArrayList<>();
+
+        synchronized (this) {
+            for (final @NonNull String id : requested) {
+                final @Nullable Item item = items.get(id);
+
+                if (item != null) {
+                    hits++;
+                    found.put(id, item);
+                } else {
+                    misses++;
+                    missing.add(id);
+                }
+            }
+            if (!missing.isEmpty()) {
+                loading++;
+            }
+        }
+        while (!missing.isEmpty()) {
+            final @NonNull List<Item> loaded;
+
+            try {
+                loaded = load(missing);
+            } catch (final @NonNull RuntimeException e) {
+                synchronized (this) {
+                    finishLoad();
+                }
+                throw e;
+            }
+            missing = keep(loaded, found);
+        }
+        final @NonNull List<Item> result = new ArrayList<>(found.size());
+
+        for (final @NonNull String id : requested) {
+            final @Nullable Item item = found.get(id);
+
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the {@link Item}s of some ids, usually all of them.
+     * <p>
+     * Items which are not loaded are read in batches, but not kept, so a full scan
+     * neither evicts nor reorders the Items which are actually in use.
+     * Like {@link #getAll(Collection)}, this blocks the calling thread, but not the cache.
+     *
+     * @param order the ids of the Items in the wanted order
+     * @return an unmodifiable {@link List} of the Items, without the ones which are not stored
+     */
+    public @NonNull List<Item> scan(final @NonNull List<String> order) {
+        final @NonNull List<Item> result = new ArrayList<>(order.size());
+        final @NonNull Map<String, Item> loaded;
+        final @NonNull List<String> missing = new ArrayList<>();
+
+        synchronized (this) {
+            loaded = new HashMap<>(items);
+        }
+
+        for (final @NonNull String id : order) {
+            if (!loaded.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        for (final @NonNull Item item : load(missing)) {
+            loaded.put(item.getId(), item);
+        }
+        for (final @NonNull String id : order) {
+            final @Nullable Item item = loaded.get(id);
+
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Evicts the least recently used {@link Item}s, which are not pinned, until the capacity is met.
+     * <p>
+     * Must be called on the main thread.
+     */
+    public synchronized void trim() {
+        evict();
+    }
+
+    /**
+     * Gets a loaded {@link Item}, without loading it.
+     *
+     * @param id the id of the Item
+     * @return the Item, or null if it is not loaded
+     */
+    public synchronized @Nullable Item getLoaded(final @NonNull String id) {
+        return items.get(id);
+    }
+
+    /**
+     * Gets all loaded {@link Item}s.
+     *
+     * @return an unmodifiable {@link List} of all loaded Items
+     */
+    public synchronized @NonNull List<Item> getLoaded() {
+        return List.copyOf(items.values());
+    }
+
+    /**
+     * Gets the current {@link Statistics} of the cache.
+     *
+     * @param total the amount of all registered Items
+     * @return the Statistics
+     */
+    public synchronized @NonNull Statistics getStatistics(final int total) {
+        return new Statistics(capacity, items.size(), total, hits, misses, loads, evictions);
+    }
+
+    /**
+     * Loads the stored {@link Item}s of some ids in batches, without holding the lock of the cache.
+     *
+     * @param missing the ids of the Items
+     * @return the loaded Items
+     */
+    private @NonNull List<Item> load(final @NonNull List<String> missing) {
+        final @NonNull List<Item> loaded = new ArrayList<>(missing.size());
+
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            loaded.addAll(loader.apply(missing.subList(from, Math.min(missing.size(), from + batchSize))));
+
+            synchronized (this) {
+                loads++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Keeps the {@link Item}s of a finished load, unless their ids changed while it was running.
+     * <p>
+     * An Item which was put in the meantime is found instead of the loaded one. If that one
+     * was already evicted again, the loaded Item may predate its write, so it is loaded again.
+     * An Item which was removed in the meantime is dropped.
+     *
+     * @param loaded the loaded Items
+     * @param found  the found Items by their ids, to which the kept Items are added
+     * @return the ids of the Items, which are to be loaded again
+     */
+    private synchronized @NonNull List<String> keep(
+            final @NonNull List<Item> loaded,
+            final @NonNull Map<String, Item> found
+    ) {
+        final @NonNull List<String> stale = new ArrayList<>();
+
+        for (final @NonNull Item item : loaded) {
+            final @Nullable Item current = items.get(item.getId());
+            final @Nullable Boolean removed = invalidated.get(item.getId());
+
+            if (current != null) {
+                found.put(item.getId(), current);
+            } else if (removed == null) {
+                found.put(item.getId(), item);
+                items.put(item.getId(), item);
+            } else if (!removed) {
+                stale.add(item.getId());
+            }
+        }
+        finishLoad();
+
+        if (!stale.isEmpty()) {
+            loading++;
+        }
+        return stale;
+    }
+
+    /**
+     * Counts a load as finished and forgets the changed ids, once no load is running anymore.
+     * <p>
+     * Must be called while holding the lock of the cache.
+     */
+    private void finishLoad() {
+        if (--loading == 0) {
+            invalidated.clear();
+        }
+    }
+
+    /**
+     * Evicts the least recently used {@link Item}s, which are not pinned, until the capacity is met.
+     * <p>
+     * Must be called on the main thread, while holding the lock of the cache.
+     */
+    private void evict() {
+        final @NonNull Iterator<String> iterator = items.keySet().iterator();
+
+        while (items.size() > capacity && iterator.hasNext()) {
+            if (!pinned.test(iterator.next())) {
+                iterator.remove();
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * The statistics of an {@link ItemCache}.
+     *
+     * @param capacity  the maximum amount of loaded Items, which are kept
+     * @param loaded    the amount of loaded Items
+     * @param total     the amount of all Items
+     * @param hits      the amount of requested Items, which were loaded already
+     * @param misses    the amount of requested Items, which had to be loaded
+     * @param loads     the amount of loads from the store
+     * @param evictions the amount of evicted Items
+     */
+    public record Statistics(
+            int capacity,
+            int loaded,
+            int total,
+            long hits,
+            long misses,
+            long loads,
+            long evictions
+    ) {
+
+        /**
+         * Gets the share of requested Items, which were loaded already.
+         *
+         * @return the hit rate from 0 to 1, or 0 if nothing was requested
+         */
+        public double hitRate() {
+            return hits + misses > 0 ? (double) hits / (hits + misses) : 0;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package me.lokkee.skylands.itemsystem;
+
+import me.lokkee.skylands.core.Rarity;
+import me.lokkee.skylands.itemsystem.storage.ItemJournal;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.function.Consumer;
+
+/**
+ * Applies the entries of the {@link ItemJournal} to the {@link ItemRegistry}, without journaling them again.
+ * <p>
+ * Every replayed change is marked as pending, so it is written again. Entries of Items
+ * which do not exist anymore are skipped. The item stacks are kept in the configured
+ * {@link LazyItemStack.Mode}, just like loaded ones.
+ */
+public final class ItemJournalReplay implements ItemJournal.Replay {
+
+    /**
+     * The main {@link ItemRegistry} instance.
+     */
+    private final @NonNull ItemRegistry itemRegistry;
+
+    /**
+     * The {@link LazyItemStack.Mode}, in which the replayed item stacks are kept.
+     */
+    private final LazyItemStack.@NonNull Mode itemStackMode;
+
+    /**
+     * The {@link Consumer}, which marks the id of a changed Item as dirty.
+     */
+    private final @NonNull Consumer<String> markDirty;
+
+    /**
+     * The {@link Consumer}, which marks a deleted Item as deleted.
+     */
+    private final @NonNull Consumer<Item> markDeleted;
+
+    /**
+     * Constructs an {@link ItemJournalReplay}.
+     *
+     * @param itemRegistry  the main {@link ItemRegistry} instance
+     * @param itemStackMode the {@link LazyItemStack.Mode}, in which the replayed item stacks are kept
+     * @param markDirty     the {@link Consumer}, which marks the id of a changed Item as dirty
+     * @param markDeleted   the Consumer, which marks a deleted Item as deleted
+     */
+    public ItemJournalReplay(
+            final @NonNull ItemRegistry itemRegistry,
+            final LazyItemStack.@NonNull Mode itemStackMode,
+            final @NonNull Consumer<String> markDirty,
+            final @NonNull Consumer<Item> markDeleted
+    ) {
+        this.itemRegistry = itemRegistry;
+        this.itemStackMode = itemStackMode;
+        this.markDirty = markDirty;
+        this.markDeleted = markDeleted;
+    }
+
+    /**
+     * Applies the creation of an {@link Item}.
+     * <p>
+     * If the Item is already stored, because the creation was written before the crash,
+     * the new Item keeps the version of the stored one, so its next write does not conflict.
+     *
+     * @param id        the id of the Item
+     * @param type      the {@link ItemType} of the Item
+     * @param rarity    the {@link Rarity} of the Item
+     * @param itemStack the serialized bytes of the item stack of the Item
+     */
+    @Override
+    public void create(
+            final @NonNull String id,
+            final @NonNull ItemType type,
+            final @NonNull Rarity rarity,
+            final byte @NonNull [] itemStack
+    ) {
+        final @NonNull Item item = new Item(id, type, rarity, LazyItemStack.load(itemStack, itemStackMode));
+
+        final @Nullable Item stored = itemRegistry.getItemFromId(id);
+
+        if (stored != null) {
+            item.setVersion(stored.getVersion());
+        }
+        itemRegistry.registerItem(item);
+        markDirty.accept(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(final @NonNull String id) {
+        final @Nullable Item item = itemRegistry.getItemFromId(id);
+
+        if (item == null) {
+            return;
+        }
+        itemRegistry.unregisterItem(id);
+        markDeleted.accept(item);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRarity(final @NonNull String id, final @NonNull Rarity rarity) {
+        final @Nullable Item item = itemRegistry.getItemFromId(id);
+
+        if (item == null) {
+            return;
+        }
+        item.setRarity(rarity);
+        itemRegistry.reindex(item);
+        markDirty.accept(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setItemStack(final @NonNull String id, final byte @NonNull [] itemStack) {
+        final @Nullable Item item = itemRegistry.getItemFromId(id);
+
+        if (item == null) {
+            return;
+        }
+        item.setItemStack(LazyItemStack.load(itemStack, itemStackMode));
+        markDirty.accept(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStat(final @NonNull String id, final @NonNull ItemStat stat, final double value) {
+        final @Nullable Item item = itemRegistry.getItemFromId(id);
+
+        if (item == null) {
+            return;
+        }
+        if (value != 0) {
+            item.setStat(stat, value);
+        } else {
+            item.removeStat(stat);
+        }
+        markDirty.accept(id);
+    }
+}
@@ -1,20 +1,58 @@
 package me.lokkee.skylands.itemsystem;
 
+import me.lokkee.skylands.Skylands;
 import me.lokkee.skylands.core.Rarity;
 import me.lokkee.skylands.core.database.DatabaseManager;
+import me.lokkee.skylands.core.database.DatabaseUnavailableException;
 import me.lokkee.skylands.core.utils.ItemSerializer;
+import me.lokkee.skylands.itemsystem.storage.ItemArchive;
+import me.lokkee.skylands.itemsystem.storage.ItemChanges;
+import me.lokkee.skylands.itemsystem.storage.ItemCodec;
+import me.lokkee.skylands.itemsystem.storage.ItemJournal;
+import me.lokkee.skylands.itemsystem.storage.ItemRecord;
+import me.lokkee.skylands.itemsystem.storage.ItemRecovery;
+import me.lokkee.skylands.itemsystem.storage.ItemSnapshot;
+import me.lokkee.skylands.itemsystem.storage.ItemStore;
+import me.lokkee.skylands.itemsystem.storage.ItemWriteBehind;
+import me.lokkee.skylands.itemsystem.storage.UnknownDictionaryException;
+import org.bukkit.Bukkit;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 
 /**
  * The manager for everything item related.
  */
 public final class ItemManager {
 
+    /**
+     * The main plugin instance of {@link Skylands}.
+     */
+    private final @NonNull Skylands skylands;
+
     /**
      * The main {@link ItemRegistry} instance.
      */
@@ -25,55 +63,238 @@ public final class ItemManager {
      */
     private final @NonNull DatabaseManager databaseManager;
 
+    /**
+     * The {@link ItemStore}, which persists all items.
+     */
+    private final @NonNull ItemStore store;
+
+    /**
+     * The {@link ItemCodec} of the stored item stacks.
+     */
+    private final @NonNull ItemCodec codec;
+
+    /**
+     * The {@link ItemWriteBehind}, which persists all item changes.
+     */
+    private final @NonNull ItemWriteBehind writeBehind;
+
+    /**
+     * The {@link ItemJournal}, which records all mutations until they are written, or null if it is disabled.
+     */
+    private final @Nullable ItemJournal journal;
+
+    /**
+     * The {@link LazyItemStack.Mode}, in which the ItemStacks of loaded Items are kept.
+     */
+    private final LazyItemStack.@NonNull Mode itemStackMode;
+
+    /**
+     * The {@link ItemSnapshot}, which is used for a fast start, or null if it is disabled.
+     */
+    private final @Nullable ItemSnapshot snapshot;
+
+    /**
+     * The revision of the {@link ItemStore}, which the snapshot was loaded for, or -1 if it was not loaded.
+     */
+    private long snapshotRevision = -1;
+
+    /**
+     * The {@link ItemRecovery}, which keeps the changes that could not be written on shutdown.
+     */
+    private final @NonNull ItemRecovery recovery;
+
+    /**
+     * Whether the changes of other servers are read from the change feed of the {@link ItemStore}.
+     */
+    private final boolean syncEnabled;
+
+    /**
+     * The sequence of the last change, which was read from the change feed.
+     */
+    private volatile long changeSequence;
+
+    /**
+     * Whether the change feed is being read right now.
+     */
+    private final @NonNull AtomicBoolean syncing = new AtomicBoolean();
+
+    /**
+     * The {@link System#currentTimeMillis()} of the last pruning of the change feed.
+     */
+    private long lastPruneAt;
+
+    /**
+     * The {@link BukkitTask}, which periodically reads the change feed, or null if it is not started.
+     */
+    private @Nullable BukkitTask syncTask;
+
+    /**
+     * Whether an export or import of the catalog is running right now.
+     */
+    private final @NonNull AtomicBoolean transferring = new AtomicBoolean();
+
+    /**
+     * The {@link Executor}, which runs tasks on the main thread.
+     */
+    private final @NonNull Executor mainThread;
+
     /**
      * Constructs an {@link ItemManager}.
      *
+     * @param skylands        the main plugin instance of {@link Skylands}
      * @param itemRegistry    the main {@link ItemRegistry} instance
      * @param databaseManager the main {@link DatabaseManager} instance
      */
     public ItemManager(
+            final @NonNull Skylands skylands,
             final @NonNull ItemRegistry itemRegistry,
             final @NonNull DatabaseManager databaseManager
     ) {
+        this.skylands = skylands;
         this.itemRegistry = itemRegistry;
         this.databaseManager = databaseManager;
 
+        codec = new ItemCodec(
+                ItemCodec.Mode.valueOf(skylands.getConfig().getString("items.compression.codec", "none").toUpperCase(Locale.ROOT)),
+                skylands.getConfig().getInt("items.compression.level", 6)
+        );
+        store = ItemStore.of(skylands, databaseManager);
+        journal = skylands.getConfig().getBoolean("items.journal.enabled", true)
+                ? new ItemJournal(new File(skylands.getDataFolder(), "items.journal").toPath(), skylands.getLogger())
+                : null;
+        writeBehind = new ItemWriteBehind(skylands, itemRegistry, databaseManager, store, codec, journal);
+        writeBehind.onConflict(this::refreshItems);
+        mainThread = runnable -> Bukkit.getScheduler().runTask(skylands, runnable);
+        itemStackMode = LazyItemStack.Mode.valueOf(
+                skylands.getConfig().getString("items.load.item-stacks", "eager").toUpperCase(Locale.ROOT)
+        );
+
+        if (skylands.getConfig().getBoolean("items.cache.enabled", false)) {
+            itemRegistry.enableCache(new ItemCache(
+                    skylands.getConfig().getInt("items.cache.capacity", 10000),
+                    skylands.getConfig().getInt("items.cache.batch-size", 500),
+                    this::readItems,
+                    writeBehind::isPending
+            ));
+        }
+        snapshot = skylands.getConfig().getBoolean("items.snapshot.enabled", true) && itemRegistry.getCache() == null
+                ? new ItemSnapshot(new File(skylands.getDataFolder(), "items.snapshot").toPath())
+                : null;
+        recovery = new ItemRecovery(new File(skylands.getDataFolder(), "items.recovery").toPath());
+        syncEnabled = skylands.getConfig().getBoolean("items.sync.enabled", false);
+
+        store.open();
+
+        if (syncEnabled) {
+            changeSequence = store.getChangeSequence();
+        }
+        loadDictionaries();
         loadItems();
+        replayJournal();
+        recoverItems();
+
+        writeBehind.start();
+        startSync();
+
+        if (codec.getMode() == ItemCodec.Mode.DICTIONARY && !codec.hasActiveDictionary()) {
+            trainDictionary();
+        }
     }
 
     /**
-     * Saves all {@link Item}s which are stored
-     * in the {@link ItemRegistry} to the database.
+     * Saves all {@link Item}s which have pending changes
+     * to the database and waits until they are written.
      */
     public void saveItems() {
-        for (final @NonNull Item item : itemRegistry.getItems()) {
-            try (final @NonNull PreparedStatement ps =
-                         databaseManager.getConnection().prepareStatement(
-                                 "UPDATE item_data SET type = ?, rarity = ?, itemstack = ? WHERE id = ?"
-                         )
-            ) {
-                ps.setString(1, item.getType().toString());
-                ps.setString(2, item.getRarity().toString());
-                ps.setString(3, ItemSerializer.ItemStackToBase64(item.getItemStack()));
-                ps.setString(4, item.getId());
-                ps.executeUpdate();
-
-                for (final @NonNull ItemStat current : item.getStats()) {
-                    try (final @NonNull PreparedStatement ps2 =
-                                 databaseManager.getConnection().prepareStatement(
-                                         "UPDATE itemstat_data SET value = ? WHERE id = ? AND stat = ?"
-                                 )
-                    ) {
-                        ps2.setDouble(1, item.getStat(current));
-                        ps2.setString(2, item.getId());
-                        ps2.setString(3, current.toString());
-                    } catch (final @NonNull SQLException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            } catch (final @NonNull SQLException e) {
-                throw new RuntimeException(e);
+        final long start = System.nanoTime();
+
+        final ItemWriteBehind.@NonNull FlushResult result = writeBehind.flushNow();
+
+        skylands.getLogger().info(String.format(
+                "Saved %d pending item changes and %d deletions in %d ms.",
+                result.records(),
+                result.deletions(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        ));
+    }
+
+    /**
+     * Gets the progress and the lag of the background persistence.
+     *
+     * @return the {@link ItemWriteBehind.Status}
+     */
+    public ItemWriteBehind.@NonNull Status getSaveStatus() {
+        return writeBehind.getStatus();
+    }
+
+    /**
+     * Saves all pending changes until the shutdown deadline, stops the background
+     * persistence and writes the {@link ItemSnapshot} for the next start.
+     * <p>
+     * Changes which could not be written in time are kept in the {@link ItemRecovery}.
+     *
+     * @param deadline the {@link System#nanoTime()} of the shutdown deadline
+     */
+    public void close(final long deadline) {
+        if (syncTask != null) {
+            syncTask.cancel();
+        }
+        final long start = System.nanoTime();
+        final int unwritten = writeBehind.close(recovery, deadline);
+
+        if (unwritten == 0) {
+            skylands.getLogger().info(String.format(
+                    "Saved all pending item changes in %d ms.",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            ));
+        }
+
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (final @NonNull IOException e) {
+                skylands.getLogger().log(Level.SEVERE, "Failed to close the item journal.", e);
+            }
+        }
+        saveSnapshot();
+    }
+
+    /**
+     * Writes all {@link Item}s as {@link ItemSnapshot} of the current revision of the {@link ItemStore}.
+     * <p>
+     * Nothing is written if the snapshot is still up to date, or if the
+     * revision is unknown because the store was also written by someone else.
+     */
+    private void saveSnapshot() {
+        if (snapshot == null) {
+            return;
+        }
+        final long revision = writeBehind.getRevision();
+
+        if (revision == snapshotRevision) {
+            return;
+        }
+        final long start = System.nanoTime();
+
+        try {
+            if (revision < 0) {
+                snapshot.delete();
+                return;
             }
+            final @NonNull List<ItemRecord> records = new ArrayList<>();
+
+            for (final @NonNull Item item : itemRegistry.getLoadedItems()) {
+                records.add(ItemRecord.of(item));
+            }
+            snapshot.write(revision, records);
+
+            skylands.getLogger().info(String.format(
+                    "Wrote the item snapshot of revision %d in %d ms.",
+                    revision,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            ));
+        } catch (final @NonNull IOException e) {
+            skylands.getLogger().log(Level.WARNING, "Failed to write the item snapshot.", e);
         }
     }
 
@@ -85,170 +306,1167 @@ public final class ItemManager {
      * @param type      the {@link ItemType} of the Item
      * @param rarity    the {@link Rarity} of the Item
      * @param itemStack the {@link ItemStat} of the Item
+     * @return the created Item
      */
-    public void createItem(
+    public @NonNull Item createItem(
             final @NonNull String id,
             final @NonNull ItemType type,
             final @NonNull Rarity rarity,
             final @NonNull ItemStack itemStack
     ) {
-        try (final @NonNull PreparedStatement ps =
-                     databaseManager.getConnection().prepareStatement(
-                             "INSERT INTO item_data (id, type, rarity, itemstack) VALUES(?, ?, ?, ?)"
-                     )
-        ) {
-            ps.setString(1, id);
-            ps.setString(2, type.toString());
-            ps.setString(3, rarity.toString());
-            ps.setString(4, ItemSerializer.ItemStackToBase64(itemStack));
-            ps.executeUpdate();
-        } catch (final @NonNull SQLException e) {
-            throw new RuntimeException(e);
-        }
+        checkSaveBuffer();
+
         final @NonNull Item item = new Item(id, type, rarity, itemStack);
 
         itemRegistry.registerItem(item);
+
+        if (journal != null) {
+            journal.appendCreate(id, type, rarity, ItemSerializer.ItemStackToBytes(itemStack));
+        }
+        writeBehind.markDirty(id);
+
+        return item;
     }
 
     /**
      * Deletes an {@link Item} and unregisters
      * it from the {@link ItemRegistry}.
+     * <p>
+     * The Item is only removed from the database, if it was not changed by another server meanwhile.
      *
-     * @param id the id of the Item which is to be deleted
-     */
-    public void deleteItem(final @NonNull String id) {
-        try (final @NonNull PreparedStatement ps =
-                     databaseManager.getConnection().prepareStatement(
-                             "DELETE FROM item_data WHERE id = ?"
-                     )
-        ) {
-            ps.setString(1, id);
-            ps.executeUpdate();
-        } catch (final @NonNull SQLException e) {
-            throw new RuntimeException(e);
-        }
+     * @param item the registered Item which is to be deleted
+     */
+    public void deleteItem(final @NonNull Item item) {
+        final @NonNull String id = item.getId();
+
+        checkSaveBuffer();
         itemRegistry.unregisterItem(id);
+
+        if (journal != null) {
+            journal.appendDelete(id);
+        }
+        writeBehind.markDeleted(id, item.getVersion());
     }
 
     /**
      * Sets the {@link Rarity} of an {@link Item}.
      *
-     * @param id     the id of the Item
+     * @param item   the registered Item
      * @param rarity the Rarity which is to be set
      */
-    public void setRarity(final @NonNull String id, final @NonNull Rarity rarity) {
-        final @NonNull Item item = itemRegistry.getItemFromId(id);
+    public void setRarity(final @NonNull Item item, final @NonNull Rarity rarity) {
+        checkSaveBuffer();
 
         item.setRarity(rarity);
+        itemRegistry.reindex(item);
+
+        if (journal != null) {
+            journal.appendRarity(item.getId(), rarity);
+        }
+        writeBehind.markDirty(item.getId());
     }
 
     /**
      * Sets the {@link ItemStack} of an {@link Item}.
      *
-     * @param id        the id of the Item
+     * @param item      the registered Item
      * @param itemStack the ItemStack which is to be set
      */
-    public void setItemStack(final @NonNull String id, final @NonNull ItemStack itemStack) {
-        final @NonNull Item item = itemRegistry.getItemFromId(id);
+    public void setItemStack(final @NonNull Item item, final @NonNull ItemStack itemStack) {
+        checkSaveBuffer();
 
         item.setItemStack(itemStack);
+
+        if (journal != null) {
+            journal.appendItemStack(item.getId(), item.getItemStackBytes());
+        }
+        writeBehind.markDirty(item.getId());
     }
 
     /**
      * Sets the value of an {@link ItemStat} of an {@link Item}.
+     * <p>
+     * A value of zero removes the ItemStat from the Item.
      *
-     * @param id    the id of the Item
+     * @param item  the registered Item
      * @param stat  the ItemStat which is to be changed
      * @param value the value which is to be set
      */
-    public void setStat(final @NonNull String id, final @NonNull ItemStat stat, final double value) {
-        final @NonNull Item item = itemRegistry.getItemFromId(id);
+    public void setStat(final @NonNull Item item, final @NonNull ItemStat stat, final double value) {
+        checkSaveBuffer();
 
-        if (item.hasStat(stat)) {
-            if (value != 0) {
-                item.setStat(stat, value);
-                return;
+        if (value != 0) {
+            item.setStat(stat, value);
+        } else if (item.hasStat(stat)) {
+            item.removeStat(stat);
+        } else {
+            return;
+        }
+        if (journal != null) {
+            journal.appendStat(item.getId(), stat, value);
+        }
+        writeBehind.markDirty(item.getId());
+    }
+
+    /**
+     * Creates an {@link Item}, registers it in the {@link ItemRegistry}
+     * and writes it to the database in the background.
+     *
+     * @param id        the unique String id of the Item
+     * @param type      the {@link ItemType} of the Item
+     * @param rarity    the {@link Rarity} of the Item
+     * @param itemStack the {@link ItemStat} of the Item
+     * @return a {@link CompletableFuture} of the Item, which completes
+     * on the main thread once the Item is written
+     */
+    public @NonNull CompletableFuture<Item> createItemAsync(
+            final @NonNull String id,
+            final @NonNull ItemType type,
+            final @NonNull Rarity rarity,
+            final @NonNull ItemStack itemStack
+    ) {
+        final @NonNull Item item = createItem(id, type, rarity, itemStack);
+
+        return awaitWrite(id).thenApply(ignored -> item);
+    }
+
+    /**
+     * Deletes an {@link Item}, unregisters it from the {@link ItemRegistry}
+     * and removes it from the database in the background.
+     *
+     * @param item the registered Item which is to be deleted
+     * @return a {@link CompletableFuture}, which completes
+     * on the main thread once the Item is removed
+     */
+    public @NonNull CompletableFuture<Void> deleteItemAsync(final @NonNull Item item) {
+        deleteItem(item);
+
+        return awaitWrite(item.getId());
+    }
+
+    /**
+     * Sets the value of an {@link ItemStat} of an {@link Item}
+     * and writes it to the database in the background.
+     * <p>
+     * A value of zero removes the ItemStat from the Item.
+     *
+     * @param item  the registered Item
+     * @param stat  the ItemStat which is to be changed
+     * @param value the value which is to be set
+     * @return a {@link CompletableFuture}, which completes
+     * on the main thread once the value is written
+     */
+    public @NonNull CompletableFuture<Void> setStatAsync(
+            final @NonNull Item item,
+            final @NonNull ItemStat stat,
+            final double value
+    ) {
+        setStat(item, stat, value);
+
+        return awaitWrite(item.getId());
+    }
+
+    /**
+     * Writes all pending changes and then streams all stored {@link Item}s
+     * into an {@link ItemArchive} in the background.
+     *
+     * @param name     the name of the archive file in the transfers folder
+     * @param progress the {@link IntConsumer}, which is called on the main thread with the amount of exported Items
+     * @return a {@link CompletableFuture}, which completes on the main thread with the amount of exported Items
+     * @throws IllegalArgumentException if the name is no plain file name
+     */
+    public @NonNull CompletableFuture<Integer> exportItems(
+            final @NonNull String name,
+            final @NonNull IntConsumer progress
+    ) {
+        final @NonNull ItemArchive archive = new ItemArchive(getTransferFile(name).toPath());
+
+        if (!transferring.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("An item transfer is running already."));
+        }
+        final @NonNull IntConsumer throttled = throttleProgress(progress);
+        final @NonNull CompletableFuture<Integer> export = flushChanges().thenApplyAsync(ignored -> {
+            try {
+                return archive.write(consumer -> store.loadItems(record -> consumer.accept(new ItemRecord(
+                        record.id(),
+                        record.type(),
+                        record.rarity(),
+                        decode(record.itemStack()),
+                        record.stats(),
+                        record.version()
+                ))), throttled);
+            } catch (final @NonNull IOException e) {
+                throw new RuntimeException(e);
             }
-            try (final @NonNull PreparedStatement ps =
-                         databaseManager.getConnection().prepareStatement(
-                                 "DELETE FROM itemstat_data WHERE id = ? AND stat = ?"
-                         )
-            ) {
-                ps.setString(1, id);
-                ps.setString(2, stat.toString());
-                ps.executeUpdate();
-            } catch (final @NonNull SQLException e) {
+        }, databaseManager.getExecutor());
+
+        final long start = System.nanoTime();
+
+        export.whenComplete((count, e) -> {
+            transferring.set(false);
+
+            if (e == null) {
+                skylands.getLogger().info(String.format(
+                        "Exported %d items to %s in %d ms.",
+                        count,
+                        name,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                ));
+            }
+        });
+        return completeOnMainThread(export);
+    }
+
+    /**
+     * Streams all {@link Item}s of an {@link ItemArchive} into the {@link ItemStore} in the background,
+     * in batches of one transaction each, and applies every written batch to the {@link ItemRegistry}.
+     * <p>
+     * Stored Items are overwritten. Local changes of imported Items, which are not yet written,
+     * conflict with the import and are discarded, and the callers which wait for them fail.
+     * If the import fails midway, the batches which were written before stay written.
+     *
+     * @param name     the name of the archive file in the transfers folder
+     * @param progress the {@link IntConsumer}, which is called on the main thread with the amount of imported Items
+     * @return a {@link CompletableFuture}, which completes on the main thread with the amount of imported Items
+     * @throws IllegalArgumentException if the name is no plain file name
+     */
+    public @NonNull CompletableFuture<Integer> importItems(
+            final @NonNull String name,
+            final @NonNull IntConsumer progress
+    ) {
+        final @NonNull ItemArchive archive = new ItemArchive(getTransferFile(name).toPath());
+
+        if (!databaseManager.getCircuitBreaker().allowRequest()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("The database is unreachable."));
+        }
+        if (!transferring.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("An item transfer is running already."));
+        }
+        final int batchSize = Math.max(1, skylands.getConfig().getInt("items.transfer.batch-size", 1000));
+        final @NonNull IntConsumer throttled = throttleProgress(progress);
+        final @NonNull CompletableFuture<Integer> transfer = supplyAsync(() -> {
+            final int[] imported = {0};
+
+            try {
+                return archive.read(batchSize, batch -> {
+                    final @NonNull List<ItemRecord> encoded = new ArrayList<>(batch.size());
+
+                    for (final @NonNull ItemRecord record : batch) {
+                        encoded.add(new ItemRecord(
+                                record.id(),
+                                record.type(),
+                                record.rarity(),
+                                codec.encode(record.itemStack()),
+                                record.stats(),
+                                0
+                        ));
+                    }
+                    final @NonNull Map<String, Long> versions = store.importItems(encoded);
+                    final @NonNull List<ItemRecord> written = new ArrayList<>(batch.size());
+                    final @NonNull List<ItemStack> itemStacks = new ArrayList<>(batch.size());
+
+                    for (final @NonNull ItemRecord record : batch) {
+                        written.add(new ItemRecord(
+                                record.id(),
+                                record.type(),
+                                record.rarity(),
+                                record.itemStack(),
+                                record.stats(),
+                                versions.getOrDefault(record.id(), 0L)
+                        ));
+                        itemStacks.add(ItemSerializer.ItemStackFromBytes(record.itemStack()));
+                    }
+                    mainThread.execute(() -> applyImport(written, itemStacks));
+
+                    imported[0] += batch.size();
+                    throttled.accept(imported[0]);
+                });
+            } catch (final @NonNull IOException e) {
                 throw new RuntimeException(e);
             }
-            item.removeStat(stat);
+        });
+
+        final long start = System.nanoTime();
+
+        transfer.whenComplete((count, e) -> {
+            transferring.set(false);
+
+            if (e == null) {
+                skylands.getLogger().info(String.format(
+                        "Imported %d items from %s in %d ms.",
+                        count,
+                        name,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                ));
+            }
+        });
+        return completeOnMainThread(transfer);
+    }
+
+    /**
+     * Gets the archive file of an export or import in the transfers folder.
+     *
+     * @param name the name of the archive file, with or without the .items extension
+     * @return the archive file
+     * @throws IllegalArgumentException if the name is no plain file name
+     */
+    private @NonNull File getTransferFile(final @NonNull String name) {
+        if (!name.matches("[A-Za-z0-9_-]+(\\.items)?")) {
+            throw new IllegalArgumentException("The file name may only contain letters, digits, - and _.");
+        }
+        return new File(
+                new File(skylands.getDataFolder(), "transfers"),
+                name.endsWith(".items") ? name : name + ".items"
+        );
+    }
+
+    /**
+     * Passes the progress of a transfer to the main thread, at most once per second.
+     *
+     * @param progress the {@link IntConsumer}, which is called on the main thread
+     * @return the IntConsumer, which is called on the transferring thread
+     */
+    private @NonNull IntConsumer throttleProgress(final @NonNull IntConsumer progress) {
+        final long[] lastReportAt = {System.nanoTime()};
+
+        return count -> {
+            final long now = System.nanoTime();
+
+            if (now - lastReportAt[0] >= TimeUnit.SECONDS.toNanos(1)) {
+                lastReportAt[0] = now;
+                mainThread.execute(() -> progress.accept(count));
+            }
+        };
+    }
+
+    /**
+     * Rejects a change, if the local buffer of unsaved changes is full.
+     *
+     * @throws DatabaseUnavailableException if the buffer is full
+     */
+    private void checkSaveBuffer() {
+        if (writeBehind.isBufferFull()) {
+            throw new DatabaseUnavailableException(
+                    "The database is unreachable and too many changes are waiting to be saved. Try again later."
+            );
+        }
+    }
+
+    /**
+     * Waits until the pending change of an {@link Item} is written by the next regular save round,
+     * unless the database is unreachable.
+     * <p>
+     * While the {@link me.lokkee.skylands.core.database.CircuitBreaker} is open, this fails
+     * right away and the change stays buffered until the database is reachable again.
+     *
+     * @param id the id of the changed Item
+     * @return a {@link CompletableFuture}, which completes on the main thread once the change is written
+     */
+    private @NonNull CompletableFuture<Void> awaitWrite(final @NonNull String id) {
+        if (!databaseManager.getCircuitBreaker().allowRequest()) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "The database is unreachable, the changes are buffered until it is reachable again."
+            ));
+        }
+        return completeOnMainThread(writeBehind.awaitWrite(id));
+    }
+
+    /**
+     * Writes all pending changes, unless the database is unreachable.
+     * <p>
+     * While the {@link me.lokkee.skylands.core.database.CircuitBreaker} is open, this fails
+     * right away and the changes stay buffered until the database is reachable again.
+     *
+     * @return a {@link CompletableFuture} which completes once the changes are written
+     */
+    private @NonNull CompletableFuture<Void> flushChanges() {
+        if (!databaseManager.getCircuitBreaker().allowRequest()) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "The database is unreachable, the changes are buffered until it is reachable again."
+            ));
+        }
+        return writeBehind.flush();
+    }
+
+    /**
+     * Passes the result of a {@link CompletableFuture} over to the main thread.
+     *
+     * @param future the CompletableFuture which completes on any thread
+     * @param <T>    the type of the result
+     * @return a CompletableFuture, which completes on the main thread
+     */
+    private <T> @NonNull CompletableFuture<T> completeOnMainThread(final @NonNull CompletableFuture<T> future) {
+        final @NonNull CompletableFuture<T> result = new CompletableFuture<>();
+
+        future.whenComplete((value, e) -> mainThread.execute(() -> {
+            if (e != null) {
+                result.completeExceptionally(e);
+                return;
+            }
+            result.complete(value);
+        }));
+        return result;
+    }
+
+    /**
+     * Loads all existing {@link Item}s from the {@link ItemSnapshot} or the {@link ItemStore}
+     * into memory and stores them in the {@link ItemRegistry}.
+     * <p>
+     * The snapshot is only used, if it reflects the current revision of the store.
+     * <p>
+     * While the records are being read, their {@link ItemStack}s are already decoded
+     * in parallel on a {@link ForkJoinPool}. The Items are then registered
+     * in the order of the records, which keeps the registry order deterministic.
+     * <p>
+     * Depending on the configured {@link LazyItemStack.Mode}, the ItemStacks are only
+     * kept as bytes and deserialized once they are used for the first time.
+     * <p>
+     * With an {@link ItemCache}, only the ids of all Items are loaded.
+     */
+    public void loadItems() {
+        if (itemRegistry.getCache() != null) {
+            loadIds();
             return;
         }
-        if (value == 0) {
+        final long start = System.nanoTime();
+        final long heapBefore = getUsedHeap();
+        final int parallelism = skylands.getConfig().getInt("items.load.parallelism", 0);
+
+        final @NonNull ForkJoinPool decoder = new ForkJoinPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()
+        );
+        final @NonNull List<RawItem> rows = new ArrayList<>();
+        final @NonNull Consumer<ItemRecord> loader = record -> rows.add(new RawItem(
+                record,
+                decoder.submit(() -> LazyItemStack.load(decode(record.itemStack()), itemStackMode))
+        ));
+        final long revision = store.getRevision();
+        @NonNull String source = "the snapshot";
+        int statCount = 0;
+
+        try {
+            if (!loadSnapshot(revision, loader)) {
+                rows.clear();
+                store.loadItems(loader);
+                source = "the database";
+            }
+
+            for (final @NonNull RawItem row : rows) {
+                final @NonNull ItemRecord record = row.record();
+
+                statCount += record.stats().size();
+                itemRegistry.registerItem(toItem(record, row.itemStack().join()));
+            }
+        } finally {
+            decoder.shutdownNow();
+        }
+        writeBehind.setRevision(revision);
+
+        skylands.getLogger().info(String.format(
+                "Loaded %d items with %d stats from %s in %d ms.",
+                rows.size(),
+                statCount,
+                source,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        ));
+        skylands.getLogger().info("Item payloads: " + codec.getStatistics() + ".");
+        skylands.getLogger().info(String.format(
+                "Item stacks are kept %s, the used heap went from %d MB to %d MB while loading. %s.",
+                itemStackMode.toString().toLowerCase(Locale.ROOT),
+                heapBefore / (1024 * 1024),
+                getUsedHeap() / (1024 * 1024),
+                getItemStackStatistics()
+        ));
+    }
+
+    /**
+     * Loads the ids of all existing {@link Item}s from the {@link ItemStore} into the {@link ItemRegistry},
+     * whose {@link ItemCache} loads the Items themselves once they are requested.
+     */
+    private void loadIds() {
+        final long start = System.nanoTime();
+        final long heapBefore = getUsedHeap();
+        final long revision = store.getRevision();
+
+        store.loadIds(itemRegistry::registerId);
+        writeBehind.setRevision(revision);
+
+        final ItemCache.@NonNull Statistics statistics = itemRegistry.getCacheStatistics();
+
+        skylands.getLogger().info(String.format(
+                "Loaded the ids of %d items in %d ms, the items are cached on demand up to %d at once. "
+                        + "The used heap went from %d MB to %d MB while loading.",
+                statistics.total(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                statistics.capacity(),
+                heapBefore / (1024 * 1024),
+                getUsedHeap() / (1024 * 1024)
+        ));
+    }
+
+    /**
+     * Reads the stored {@link Item}s of some ids from the {@link ItemStore}, as loader of the {@link ItemCache}.
+     * <p>
+     * This blocks the calling thread until the Items are read.
+     * Items which cannot be decoded are logged and left out.
+     *
+     * @param ids the ids of the Items
+     * @return the stored Items
+     */
+    private @NonNull List<Item> readItems(final @NonNull Collection<String> ids) {
+        final @NonNull List<Item> items = new ArrayList<>(ids.size());
+
+        for (final @NonNull ItemRecord record : store.readItems(ids)) {
+            try {
+                items.add(toItem(record, LazyItemStack.load(decode(record.itemStack()), itemStackMode)));
+            } catch (final @NonNull RuntimeException e) {
+                skylands.getLogger().log(Level.WARNING, "The stored item " + record.id() + " cannot be decoded and is skipped.", e);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Creates the {@link Item} of a stored {@link ItemRecord}.
+     *
+     * @param record    the ItemRecord
+     * @param itemStack the decoded {@link LazyItemStack} of the ItemRecord
+     * @return the Item
+     */
+    private static @NonNull Item toItem(final @NonNull ItemRecord record, final @NonNull LazyItemStack itemStack) {
+        final @NonNull Item item = new Item(record.id(), record.type(), record.rarity(), itemStack);
+
+        record.stats().forEach(item::setStat);
+        item.setVersion(record.version());
+        return item;
+    }
+
+    /**
+     * Gets the current {@link ItemCache.Statistics} of the {@link ItemRegistry}.
+     *
+     * @return the Statistics, or null if all Items are resident
+     */
+    public ItemCache.@Nullable Statistics getCacheStatistics() {
+        return itemRegistry.getCacheStatistics();
+    }
+
+    /**
+     * Gets the {@link Item} of an id without blocking the main thread.
+     *
+     * @param id the id of the Item
+     * @return a {@link CompletableFuture}, which completes on the main thread
+     * with the Item, or null if it does not exist
+     * @see #getItemsAsync(Collection)
+     */
+    public @NonNull CompletableFuture<@Nullable Item> getItemAsync(final @NonNull String id) {
+        return getItemsAsync(List.of(id)).thenApply(items -> items.isEmpty() ? null : items.get(0));
+    }
+
+    /**
+     * Gets the {@link Item}s of some ids without blocking the main thread.
+     * <p>
+     * With an {@link ItemCache}, the Items which are not loaded are read on the database executor.
+     * Otherwise, or if all of them are loaded, the CompletableFuture is already completed.
+     *
+     * @param ids the ids of the Items
+     * @return a {@link CompletableFuture}, which completes on the main thread with the Items
+     * in the order of their ids, without the ones which do not exist
+     */
+    public @NonNull CompletableFuture<List<Item>> getItemsAsync(final @NonNull Collection<String> ids) {
+        final @NonNull List<Item> loaded = new ArrayList<>(ids.size());
+
+        for (final @NonNull String id : ids) {
+            if (!itemRegistry.isIdValid(id)) {
+                continue;
+            }
+            final @Nullable Item item = itemRegistry.getLoadedItem(id);
+
+            if (item == null) {
+                final @NonNull List<String> requested = List.copyOf(ids);
+
+                return loadAsync(() -> itemRegistry.getItemsFromIds(requested));
+            }
+            loaded.add(item);
+        }
+        return CompletableFuture.completedFuture(loaded);
+    }
+
+    /**
+     * Gets all {@link Item}s of an {@link ItemType} and a {@link Rarity} without blocking the main thread.
+     * <p>
+     * With an {@link ItemCache}, the Items which are not loaded are read on the database executor.
+     *
+     * @param type   the ItemType of the Items, or null for any
+     * @param rarity the Rarity of the Items, or null for any
+     * @return a {@link CompletableFuture}, which completes on the main thread
+     * with the matching Items in their registration order
+     */
+    public @NonNull CompletableFuture<List<Item>> getItemsAsync(
+            final @Nullable ItemType type,
+            final @Nullable Rarity rarity
+    ) {
+        if (itemRegistry.getCache() == null) {
+            return CompletableFuture.completedFuture(itemRegistry.getItems(type, rarity));
+        }
+        return loadAsync(() -> itemRegistry.getItems(type, rarity));
+    }
+
+    /**
+     * Runs a lookup of the {@link ItemRegistry}, which may read the {@link ItemStore},
+     * on the database executor and trims the {@link ItemCache} once it is done.
+     *
+     *
+     * @param lookup the {@link Supplier} of the lookup
+     * @param <T>    the type of the result
+     * @return a {@link CompletableFuture}, which completes on the main thread with the result
+     */
+    private <T> @NonNull CompletableFuture<T> loadAsync(final @NonNull Supplier<T> lookup) {
+        return completeOnMainThread(supplyAsync(lookup))
+                .thenApply(result -> {
+                    itemRegistry.trimCache();
+                    return result;
+                });
+    }
+
+    /**
+     * Runs some blocking work on the database executor.
+     * <p>
+     * If the executor is too busy to take the work, the returned CompletableFuture fails
+     * with a {@link DatabaseUnavailableException}, whose message can be shown to the player.
+     *
+     * @param supplier the {@link Supplier} of the work
+     * @param <T>      the type of the result
+     * @return a {@link CompletableFuture}, which completes on the database executor with the result
+     */
+    private <T> @NonNull CompletableFuture<T> supplyAsync(final @NonNull Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, databaseManager.getExecutor());
+        } catch (final @NonNull RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new DatabaseUnavailableException(
+                    "The database is busy, please try again in a moment."
+            ));
+        }
+    }
+
+    /**
+     * Gets statistics about how many {@link ItemStack}s of all {@link Item}s
+     * are deserialized and how many bytes are kept serialized.
+     *
+     * @return the statistics as String
+     */
+    public @NonNull String getItemStackStatistics() {
+        final @NonNull List<Item> items = itemRegistry.getLoadedItems();
+        int materialized = 0;
+        long bytes = 0;
+
+        for (final @NonNull Item item : items) {
+            final @NonNull LazyItemStack itemStack = item.getLazyItemStack();
+
+            if (itemStack.isMaterialized()) {
+                materialized++;
+            }
+            bytes += itemStack.getByteSize();
+        }
+        return String.format(
+                "%d of %d item stacks are deserialized, %d KB are kept serialized",
+                materialized,
+                items.size(),
+                bytes / 1024
+        );
+    }
+
+    /**
+     * Gets the currently used heap memory.
+     *
+     * @return the used heap in bytes
+     */
+    private static long getUsedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Replays all changes of the {@link ItemJournal}, which were not written before
+     * the last shutdown, and writes them before the server starts.
+     */
+    private void replayJournal() {
+        if (journal == null) {
             return;
         }
-        try (final @NonNull PreparedStatement ps =
-                     databaseManager.getConnection().prepareStatement(
-                             "INSERT INTO itemstat_data (id, stat, value) VALUES(?, ?, ?)"
-                     )
-        ) {
-            ps.setString(1, id);
-            ps.setString(2, stat.toString());
-            ps.setDouble(3, value);
-            ps.executeUpdate();
-        } catch (final @NonNull SQLException e) {
+        final long start = System.nanoTime();
+        final int replayed;
+
+        try {
+            replayed = journal.open(
+                    new ItemJournalReplay(
+                            itemRegistry,
+                            itemStackMode,
+                            writeBehind::markDirty,
+                            item -> writeBehind.markDeleted(item.getId(), item.getVersion())
+                    ),
+                    Math.max(1, skylands.getConfig().getLong("items.journal.sync-interval", 50))
+            );
+        } catch (final @NonNull IOException e) {
             throw new RuntimeException(e);
         }
-        item.setStat(stat, value);
+        if (replayed == 0) {
+            return;
+        }
+        itemRegistry.trimCache();
+        writeBehind.flushNow();
+
+        skylands.getLogger().info(String.format(
+                "Replayed %d item changes from the journal in %d ms.",
+                replayed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        ));
     }
 
     /**
-     * Loads all existing {@link Item}s from the database into memory
-     * and stores them in the {@link ItemRegistry}.
+     * Applies all changes of the {@link ItemRecovery}, which could not be written
+     * before the last shutdown, and writes them before the server starts.
+     * <p>
+     * The recovery file is only deleted once the changes are written. Deletions are written with
+     * the versions of the Items loaded at startup, so Items changed by another server meanwhile are kept.
      */
-    public void loadItems() {
-        try (final @NonNull PreparedStatement ps =
-                     databaseManager.getConnection().prepareStatement(
-                             "SELECT * FROM item_data"
-                     )
-        ) {
-            if (!ps.execute()) {
+    private void recoverItems() {
+        if (!recovery.exists()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        final @NonNull List<ItemRecord> records = new ArrayList<>();
+        final @NonNull List<String> deletions = new ArrayList<>();
+
+        try {
+            recovery.read(records::add, deletions::add);
+        } catch (final @NonNull IOException e) {
+            skylands.getLogger().log(Level.SEVERE, "The item recovery file is unreadable and is kept for inspection.", e);
+            return;
+        }
+        for (final @NonNull String id : deletions) {
+            final @Nullable Item item = itemRegistry.getItemFromId(id);
+
+            if (item == null) {
+                continue;
+            }
+            itemRegistry.unregisterItem(id);
+            writeBehind.markDeleted(id, item.getVersion());
+        }
+        for (final @NonNull ItemRecord record : records) {
+            final @NonNull Item item = new Item(
+                    record.id(),
+                    record.type(),
+                    record.rarity(),
+                    ItemSerializer.ItemStackFromBytes(record.itemStack())
+            );
+
+            record.stats().forEach(item::setStat);
+            item.setVersion(record.version());
+            itemRegistry.registerItem(item);
+            writeBehind.markDirty(record.id());
+        }
+        try {
+            writeBehind.flushNow();
+            recovery.delete();
+        } catch (final @NonNull RuntimeException | IOException e) {
+            skylands.getLogger().log(Level.SEVERE, "Failed to write the recovered item changes, the recovery file is kept.", e);
+            return;
+        }
+        skylands.getLogger().info(String.format(
+                "Recovered %d item changes from the last shutdown in %d ms.",
+                records.size() + deletions.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        ));
+    }
+
+    /**
+     * Starts reading the changes of other servers from the change feed periodically, if it is enabled.
+     */
+    private void startSync() {
+        if (!syncEnabled) {
+            return;
+        }
+        final long interval = Math.max(1, skylands.getConfig().getLong("items.sync.poll-interval", 2)) * 20;
+
+        syncTask = Bukkit.getScheduler().runTaskTimerAsynchronously(skylands, this::pollChanges, interval, interval);
+    }
+
+    /**
+     * Reads the next changes of other servers from the change feed and decodes their {@link ItemStack}s,
+     * then applies them on the main thread.
+     * <p>
+     * Only one read is in progress at a time, and none while the database is unreachable.
+     * If the change feed was pruned past the last read change, all Items are reloaded instead.
+     */
+    private void pollChanges() {
+        if (!databaseManager.getCircuitBreaker().allowRequest() || !syncing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (store.getOldestChangeSequence() > changeSequence + 1) {
+                resyncItems();
                 return;
             }
-            final @NonNull ResultSet rs = ps.getResultSet();
+            final @NonNull ItemChanges changes = store.readChanges(
+                    changeSequence,
+                    Math.max(1, skylands.getConfig().getInt("items.sync.batch-size", 500))
+            );
+            pruneChanges();
+
+            final @NonNull DecodedChanges decoded = decodeChanges(changes);
 
-            while (rs.next()) {
-                final @NonNull String id = rs.getString("id");
-                final @NonNull ItemType type = ItemType.valueOf(rs.getString("type"));
-                final @NonNull Rarity rarity = Rarity.valueOf(rs.getString("rarity"));
-                final @NonNull ItemStack itemStack = ItemSerializer.ItemStackFromBase64(rs.getString("itemstack"));
+            Bukkit.getScheduler().runTask(skylands, () -> {
+                try {
+                    applyChanges(decoded.changes(), decoded.itemStacks());
+                    changeSequence = changes.sequence();
+                } finally {
+                    syncing.set(false);
+                }
+            });
+        } catch (final @NonNull RuntimeException e) {
+            syncing.set(false);
+            skylands.getLogger().log(Level.WARNING, "Failed to read the item changes of other servers.", e);
+        }
+    }
 
-                final @NonNull Item item = new Item(id, type, rarity, itemStack);
+    /**
+     * Removes the old changes from the change feed, at most once per minute.
+     */
+    private void pruneChanges() {
+        final long now = System.currentTimeMillis();
 
-                try (final @NonNull PreparedStatement ps2 =
-                             databaseManager.getConnection().prepareStatement(
-                                     "SELECT * FROM itemstat_data WHERE id = ?"
-                             )
-                ) {
-                    ps2.setString(1, id);
+        if (now - lastPruneAt < 60_000) {
+            return;
+        }
+        lastPruneAt = now;
+        store.pruneChanges(TimeUnit.MINUTES.toMillis(
+                Math.max(1, skylands.getConfig().getLong("items.sync.retention", 60))
+        ));
+    }
 
-                    if (!ps2.execute()) {
-                        break;
-                    }
-                    final @NonNull ResultSet rs2 = ps2.getResultSet();
+    /**
+     * Reloads the stored state of all {@link Item}s, as the change feed was pruned past the last
+     * read change, so some changes of other servers were missed, then applies it on the main thread.
+     * <p>
+     * With an {@link ItemCache}, only the ids of all Items and the loaded Items are read.
+     * <p>
+     * Must be called by {@link #pollChanges()}, whose read is finished once the state is applied.
+     */
+    private void resyncItems() {
+        skylands.getLogger().warning("The item changes of other servers were pruned before they were read, reloading all items.");
 
-                    while (rs.next()) {
-                        final @NonNull ItemStat stat = ItemStat.valueOf(rs2.getString("stat"));
-                        final double value = rs2.getDouble("value");
+        final long sequence = store.getChangeSequence();
+        final @NonNull List<StoredId> storedIds = new ArrayList<>();
+        final @NonNull List<ItemRecord> records = new ArrayList<>();
 
-                        item.setStat(stat, value);
-                    }
-                } catch (final @NonNull SQLException e) {
-                    throw new RuntimeException(e);
+        store.loadIds((id, type, rarity) -> storedIds.add(new StoredId(id, type, rarity)));
+
+        if (itemRegistry.getCache() == null) {
+            store.loadItems(records::add);
+        } else {
+            final @NonNull List<String> loadedIds = new ArrayList<>();
+
+            itemRegistry.getLoadedItems().forEach(item -> loadedIds.add(item.getId()));
+            records.addAll(store.readItems(loadedIds));
+        }
+        final @NonNull DecodedChanges decoded = decodeChanges(new ItemChanges(sequence, records, List.of()));
+
+        Bukkit.getScheduler().runTask(skylands, () -> {
+            try {
+                applyResync(storedIds, decoded);
+                changeSequence = sequence;
+            } finally {
+                syncing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Applies the reloaded stored state of all {@link Item}s to the {@link ItemRegistry}.
+     * <p>
+     * Items which are no longer stored are unregistered. With an {@link ItemCache},
+     * the ids of all stored Items are registered again, which updates their indexes.
+     * Like other changes, Items with local changes which are not yet written are skipped.
+     *
+     * @param storedIds the ids of all stored Items
+     * @param decoded   the reloaded {@link ItemRecord}s with their decoded {@link ItemStack}s
+     */
+    private void applyResync(final @NonNull List<StoredId> storedIds, final @NonNull DecodedChanges decoded) {
+        final @NonNull Set<String> stored = new HashSet<>(storedIds.size());
+
+        for (final @NonNull StoredId storedId : storedIds) {
+            stored.add(storedId.id());
+
+            if (itemRegistry.getCache() != null && !writeBehind.isPending(storedId.id())) {
+                itemRegistry.registerId(storedId.id(), storedId.type(), storedId.rarity());
+            }
+        }
+        final @NonNull List<String> deletions = new ArrayList<>();
+
+        for (final @NonNull String id : itemRegistry.getIds()) {
+            if (!stored.contains(id)) {
+                deletions.add(id);
+            }
+        }
+        applyChanges(
+                new ItemChanges(decoded.changes().sequence(), decoded.changes().records(), deletions),
+                decoded.itemStacks()
+        );
+    }
+
+    /**
+     * Decodes the {@link ItemStack}s of the changed {@link ItemRecord}s of some {@link ItemChanges}.
+     * <p>
+     * Records which cannot be decoded are logged and left out, so they do not hold up the other changes.
+     *
+     * @param changes the ItemChanges
+     * @return the ItemChanges without the left out records, with the decoded ItemStacks
+     */
+    private @NonNull DecodedChanges decodeChanges(final @NonNull ItemChanges changes) {
+        final @NonNull List<ItemRecord> records = new ArrayList<>(changes.records().size());
+        final @NonNull List<ItemStack> itemStacks = new ArrayList<>(changes.records().size());
+
+        for (final @NonNull ItemRecord record : changes.records()) {
+            try {
+                itemStacks.add(ItemSerializer.ItemStackFromBytes(decode(record.itemStack())));
+                records.add(record);
+            } catch (final @NonNull RuntimeException e) {
+                skylands.getLogger().log(Level.WARNING, "The stored item " + record.id() + " cannot be decoded and is skipped.", e);
+            }
+        }
+        return new DecodedChanges(new ItemChanges(changes.sequence(), records, changes.deletions()), itemStacks);
+    }
+
+    /**
+     * Decodes the stored form of an {@link ItemStack} with the {@link ItemCodec}.
+     * <p>
+     * If it was encoded with a dictionary, which another server trained after the dictionaries were loaded,
+     * they are loaded again from the {@link ItemStore} and the decoding is retried once.
+     *
+     * @param data the stored form of the ItemStack
+     * @return the serialized bytes of the ItemStack
+     */
+    private byte @NonNull [] decode(final byte @NonNull [] data) {
+        try {
+            return codec.decode(data);
+        } catch (final @NonNull UnknownDictionaryException e) {
+            synchronized (codec) {
+                if (!codec.hasDictionary(e.getDictionaryId())) {
+                    store.loadDictionaries().forEach(codec::addDictionary);
                 }
-                itemRegistry.registerItem(item);
             }
-        } catch (final @NonNull SQLException e) {
-            throw new RuntimeException(e);
+            return codec.decode(data);
+        }
+    }
+
+    /**
+     * Applies the {@link ItemChanges} of other servers to the {@link ItemRegistry}.
+     * <p>
+     * Items with local changes, which are not yet written, are skipped,
+     * as the local write is going to supersede the remote change.
+     *
+     * @param changes    the ItemChanges which are to be applied
+     * @param itemStacks the decoded {@link ItemStack}s of the changed {@link ItemRecord}s
+     */
+    private void applyChanges(final @NonNull ItemChanges changes, final @NonNull List<ItemStack> itemStacks) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        int applied = 0;
+
+        for (final @NonNull String id : changes.deletions()) {
+            if (!writeBehind.isPending(id) && itemRegistry.isIdValid(id)) {
+                itemRegistry.unregisterItem(id);
+                applied++;
+            }
+        }
+        for (int i = 0; i < changes.records().size(); i++) {
+            final @NonNull ItemRecord record = changes.records().get(i);
+
+            if (writeBehind.isPending(record.id())) {
+                continue;
+            }
+            applyRecord(record, itemStacks.get(i));
+            applied++;
+        }
+        skylands.getLogger().fine(String.format(
+                "Applied %d item changes of other servers.",
+                applied
+        ));
+    }
+
+    /**
+     * Applies a written batch of an import to the {@link ItemRegistry}.
+     * <p>
+     * Unlike the changes of other servers, the imported state overwrites local changes,
+     * which are not yet written, as their writes are going to conflict with the import.
+     *
+     * @param records    the written {@link ItemRecord}s
+     * @param itemStacks the decoded {@link ItemStack}s of the ItemRecords
+     */
+    private void applyImport(final @NonNull List<ItemRecord> records, final @NonNull List<ItemStack> itemStacks) {
+        final @NonNull List<String> ids = new ArrayList<>(records.size());
+
+        for (final @NonNull ItemRecord record : records) {
+            ids.add(record.id());
+        }
+        writeBehind.discard(ids);
+
+        for (int i = 0; i < records.size(); i++) {
+            applyRecord(records.get(i), itemStacks.get(i));
+        }
+    }
+
+    /**
+     * Registers the stored state of an {@link Item}, replacing the current one.
+     *
+     * @param record    the stored {@link ItemRecord} of the Item
+     * @param itemStack the decoded {@link ItemStack} of the ItemRecord
+     */
+    private void applyRecord(final @NonNull ItemRecord record, final @NonNull ItemStack itemStack) {
+        final @NonNull Item item = new Item(record.id(), record.type(), record.rarity(), itemStack);
+
+        record.stats().forEach(item::setStat);
+        item.setVersion(record.version());
+        itemRegistry.registerItem(item);
+    }
+
+    /**
+     * Reloads {@link Item}s, whose local changes conflicted with concurrent changes of another server,
+     * from the {@link ItemStore} in the background and applies their stored state.
+     *
+     * @param ids the ids of the conflicting Items
+     */
+    private void refreshItems(final @NonNull List<String> ids) {
+        supplyAsync(() -> {
+            final @NonNull List<ItemRecord> records = store.readItems(ids);
+            final @NonNull List<String> deletions = new ArrayList<>(ids);
+
+            for (final @NonNull ItemRecord record : records) {
+                deletions.remove(record.id());
+            }
+            return decodeChanges(new ItemChanges(changeSequence, records, deletions));
+        }).thenAcceptAsync(
+                refreshed -> applyChanges(refreshed.changes(), refreshed.itemStacks()),
+                mainThread
+        ).exceptionally(e -> {
+            skylands.getLogger().log(Level.WARNING, "Failed to reload the conflicting items " + ids + ".", e);
+            return null;
+        });
+    }
+
+    /**
+     * Reads all {@link ItemRecord}s of the {@link ItemSnapshot}, if it reflects a revision.
+     *
+     * @param revision the current revision of the {@link ItemStore}
+     * @param loader   the {@link Consumer}, which is called with every ItemRecord
+     * @return whether the snapshot was read
+     */
+    private boolean loadSnapshot(final long revision, final @NonNull Consumer<ItemRecord> loader) {
+        if (snapshot == null) {
+            return false;
+        }
+        try {
+            if (snapshot.read(revision, loader)) {
+                snapshotRevision = revision;
+                return true;
+            }
+        } catch (final @NonNull IOException e) {
+            skylands.getLogger().log(Level.WARNING, "The item snapshot is unreadable and is ignored.", e);
+        }
+        return false;
+    }
+
+    /**
+     * Loads all stored compression dictionaries into the {@link ItemCodec}
+     * and activates the most recently trained one.
+     */
+    private void loadDictionaries() {
+        for (final byte @NonNull [] dictionary : store.loadDictionaries()) {
+            final int id = codec.addDictionary(dictionary);
+
+            if (codec.getMode() == ItemCodec.Mode.DICTIONARY) {
+                codec.setActiveDictionary(id);
+            }
+        }
+    }
+
+    /**
+     * Trains a compression dictionary on samples of the loaded catalog in the background,
+     * stores it in the {@link ItemStore} and activates it in the {@link ItemCodec}.
+     */
+    private void trainDictionary() {
+        final @NonNull List<String> ids = itemRegistry.getIds();
+        final int sampleCount = Math.max(1, skylands.getConfig().getInt("items.compression.dictionary-samples", 1000));
+        final int size = Math.max(1024, skylands.getConfig().getInt("items.compression.dictionary-size", 16384));
+
+        if (ids.isEmpty()) {
+            return;
         }
+        final int step = Math.max(1, ids.size() / sampleCount);
+        final @NonNull List<String> sampleIds = new ArrayList<>();
+
+        for (int i = 0; i < ids.size() && sampleIds.size() < sampleCount; i += step) {
+            sampleIds.add(ids.get(i));
+        }
+        getItemsAsync(sampleIds).thenApply(items -> {
+            final @NonNull List<byte[]> samples = new ArrayList<>(items.size());
+
+            for (final @NonNull Item item : items) {
+                samples.add(item.getItemStackBytes());
+            }
+            return samples;
+        }).thenAcceptAsync(samples -> {
+            final byte @NonNull [] dictionary = ItemCodec.train(samples, size);
+
+            store.saveDictionary(ItemCodec.dictionaryId(dictionary), dictionary);
+            codec.setActiveDictionary(codec.addDictionary(dictionary));
+
+            skylands.getLogger().info(String.format(
+                    "Trained a %d byte item compression dictionary on %d items.",
+                    dictionary.length,
+                    samples.size()
+            ));
+        }, databaseManager.getExecutor()).exceptionally(e -> {
+            skylands.getLogger().log(Level.WARNING, "Failed to train the item compression dictionary.", e);
+            return null;
+        });
+    }
+
+    /**
+     * A stored {@link ItemRecord}, whose {@link ItemStack} is still being decoded.
+     *
+     * @param record    the ItemRecord as it was stored
+     * @param itemStack the {@link ForkJoinTask}, which decodes the {@link LazyItemStack} of the Item
+     */
+    private record RawItem(
+            @NonNull ItemRecord record,
+            @NonNull ForkJoinTask<LazyItemStack> itemStack
+    ) {
+    }
+
+    /**
+     * The id of a stored {@link Item} with its {@link ItemType} and its {@link Rarity}.
+     *
+     * @param id     the id of the Item
+     * @param type   the ItemType of the Item
+     * @param rarity the Rarity of the Item
+     */
+    private record StoredId(
+            @NonNull String id,
+            @NonNull ItemType type,
+            @NonNull Rarity rarity
+    ) {
+    }
+
+    /**
+     * The stored state of changed {@link Item}s, whose {@link ItemStack}s are decoded.
+     *
+     * @param changes    the {@link ItemChanges} of the Items
+     * @param itemStacks the decoded {@link ItemStack}s of the changed {@link ItemRecord}s
+     */
+    private record DecodedChanges(
+            @NonNull ItemChanges changes,
+            @NonNull List<ItemStack> itemStacks
+    ) {
     }
 }
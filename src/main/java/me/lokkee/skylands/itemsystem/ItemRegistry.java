@@ -1,79 +1,464 @@
 package me.lokkee.skylands.itemsystem;
 
+import me.lokkee.skylands.core.Rarity;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A registry for all existing {@link Item}s.
+ * <p>
+ * By default all Items are resident. With an {@link ItemCache}, only their ids are resident
+ * and the Items are loaded on demand.
+ * <p>
+ * The registry may be read from any thread. Point lookups go to a concurrent map, while
+ * iterations go to an immutable {@link Snapshot} in registration order, which is shared
+ * by all readers until the next change. Changes are serialized and only invalidate the
+ * Snapshot, which is then rebuilt once on the next iteration, so a burst of changes
+ * does not copy the registry once per change.
+ * <p>
+ * The ids are also indexed by their {@link ItemType}, their {@link Rarity} and both,
+ * so filtered queries only touch the matching Items.
  */
 public final class ItemRegistry {
 
     /**
-     * The {@link Map} holding the {@link Item}s of the registry.
+     * The {@link Map} holding the resident {@link Item}s of the registry.
      * <p>
      * Key - The unique String id of the Item.
      * <p>
      * Value - The instance of the Item.
      */
-    private final @NonNull Map<String, Item> items = new LinkedHashMap<>();
+    private final @NonNull Map<String, Item> items = new ConcurrentHashMap<>();
+
+    /**
+     * The ids of all Items in their registration order, guarded by the registry.
+     */
+    private final @NonNull Set<String> ids = new LinkedHashSet<>();
+
+    /**
+     * The ids of all Items for lookups without the lock of the registry.
+     */
+    private final @NonNull Set<String> idIndex = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The {@link Category} of every id, by which it is indexed, guarded by the registry.
+     */
+    private final @NonNull Map<String, Category> categories = new HashMap<>();
+
+    /**
+     * The ids of all Items by their {@link ItemType} in their registration order, guarded by the registry.
+     */
+    private final @NonNull Map<ItemType, Set<String>> typeIndex = new EnumMap<>(ItemType.class);
+
+    /**
+     * The ids of all Items by their {@link Rarity} in their registration order, guarded by the registry.
+     */
+    private final @NonNull Map<Rarity, Set<String>> rarityIndex = new EnumMap<>(Rarity.class);
+
+    /**
+     * The ids of all Items by their {@link ItemType} and their {@link Rarity}
+     * in their registration order, guarded by the registry.
+     */
+    private final @NonNull Map<ItemType, Map<Rarity, Set<String>>> typeRarityIndex = new EnumMap<>(ItemType.class);
+
+    /**
+     * The version of the registry, which is incremented by every change, guarded by the registry.
+     */
+    private long version;
+
+    /**
+     * The {@link Snapshot} of the current version, or null if it is not built yet.
+     */
+    private volatile @Nullable Snapshot snapshot;
+
+    /**
+     * The {@link ItemCache}, which holds the Items instead, or null if all Items are resident.
+     */
+    private volatile @Nullable ItemCache cache;
+
+    /**
+     * Holds all {@link Item}s in an {@link ItemCache} instead of keeping them resident.
+     * <p>
+     * Must be called before the first Item is registered.
+     *
+     * @param cache the ItemCache
+     */
+    public void enableCache(final @NonNull ItemCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Gets the {@link ItemCache}, which holds the {@link Item}s.
+     *
+     * @return the ItemCache, or null if all Items are resident
+     */
+    public @Nullable ItemCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the current {@link ItemCache.Statistics}.
+     *
+     * @return the Statistics, or null if all Items are resident
+     */
+    public ItemCache.@Nullable Statistics getCacheStatistics() {
+        final @Nullable ItemCache cache = this.cache;
+
+        return cache != null ? cache.getStatistics(getSnapshot().ids().size()) : null;
+    }
 
     /**
      * Registers an {@link Item} by adding it to the registry.
+     * <p>
+     * The Item is published before its id, so a reader which sees the id as valid
+     * always finds the Item.
      *
      * @param item the Item which is to be registered
      */
     public void registerItem(final @NonNull Item item) {
-        items.put(item.getId(), item);
+        if (cache != null) {
+            cache.put(item);
+        } else {
+            items.put(item.getId(), item);
+        }
+        synchronized (this) {
+            ids.add(item.getId());
+            index(item.getId(), new Category(item.getType(), item.getRarity()));
+            changed();
+            idIndex.add(item.getId());
+        }
+    }
+
+    /**
+     * Registers the id of a stored {@link Item}, which is loaded once it is requested.
+     * <p>
+     * Only supported with an {@link ItemCache}.
+     *
+     * @param id     the id of the Item which is to be registered
+     * @param type   the {@link ItemType} of the Item
+     * @param rarity the {@link Rarity} of the Item
+     */
+    public void registerId(final @NonNull String id, final @NonNull ItemType type, final @NonNull Rarity rarity) {
+        if (cache == null) {
+            throw new IllegalStateException("Only the ids of cached items can be registered.");
+        }
+        synchronized (this) {
+            ids.add(id);
+            index(id, new Category(type, rarity));
+            changed();
+            idIndex.add(id);
+        }
+    }
+
+    /**
+     * Updates the indexes of an {@link Item}, whose {@link Rarity} was changed.
+     *
+     * @param item the Item whose Rarity was changed
+     */
+    public void reindex(final @NonNull Item item) {
+        synchronized (this) {
+            if (ids.contains(item.getId())) {
+                index(item.getId(), new Category(item.getType(), item.getRarity()));
+            }
+        }
     }
 
     /**
      * Unregisters an {@link Item} by removing it from the registry.
+     * <p>
+     * The id is withdrawn before the Item, in the reverse order of {@link #registerItem(Item)}.
      *
      * @param id the id of the Item which is to be unregistered
      */
     public void unregisterItem(final @NonNull String id) {
-        items.remove(id);
+        synchronized (this) {
+            idIndex.remove(id);
+            ids.remove(id);
+            deindex(id);
+            changed();
+            items.remove(id);
+        }
+        if (cache != null) {
+            cache.remove(id);
+        }
     }
 
     /**
      * Gets the entry of an id and its {@link Item}.
+     * <p>
+     * With an {@link ItemCache}, the Item is read from the store if it is not loaded,
+     * which blocks the calling thread. The main thread should load it in the background,
+     * or use {@link #getLoadedItem(String)}, if only loaded Items are of interest.
+     *
+     * @param id the id of the Item which is wanted
+     * @return the Item associated to the id, or null if it does not exist
+     */
+    public @Nullable Item getItemFromId(final @NonNull String id) {
+        if (cache == null) {
+            return items.get(id);
+        }
+        final @NonNull List<Item> found = getItemsFromIds(List.of(id));
+
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Gets the {@link Item}s of some ids.
+     * <p>
+     * With an {@link ItemCache}, all Items which are not loaded are read from the store in batches,
+     * which blocks the calling thread. The main thread should load them in the background instead.
+     *
+     * @param ids the ids of the Items which are wanted
+     * @return a {@link List} of the Items in the order of their ids, without the ones which do not exist
+     */
+    public @NonNull List<Item> getItemsFromIds(final @NonNull Collection<String> ids) {
+        if (cache != null) {
+            final @NonNull List<String> existing = new ArrayList<>(ids.size());
+
+            for (final @NonNull String id : ids) {
+                if (idIndex.contains(id)) {
+                    existing.add(id);
+                }
+            }
+            return cache.getAll(existing);
+        }
+        final @NonNull List<Item> found = new ArrayList<>(ids.size());
+
+        for (final @NonNull String id : ids) {
+            final @Nullable Item item = items.get(id);
+
+            if (item != null) {
+                found.add(item);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Evicts the least recently used {@link Item}s from the {@link ItemCache},
+     * once the Items which were loaded in the background exceeded its capacity.
+     * <p>
+     * Must be called on the main thread.
+     */
+    public void trimCache() {
+        if (cache != null) {
+            cache.trim();
+        }
+    }
+
+    /**
+     * Gets an {@link Item}, if it is in memory right now.
      *
      * @param id the id of the Item which is wanted
-     * @return the Item associated to the id
+     * @return the Item, or null if it does not exist or is not loaded
+     */
+    public @Nullable Item getLoadedItem(final @NonNull String id) {
+        return cache != null ? cache.getLoaded(id) : items.get(id);
+    }
+
+    /**
+     * Gets all {@link Item}s, which are in memory right now.
+     *
+     * @return an unmodifiable {@link List} of all loaded Items
      */
-    public @NonNull Item getItemFromId(final @NonNull String id) {
-        return items.get(id);
+    public @NonNull List<Item> getLoadedItems() {
+        return cache != null ? cache.getLoaded() : getSnapshot().items();
     }
 
     /**
      * Gets all registered {@link Item}s.
+     * <p>
+     * With an {@link ItemCache}, this reads all Items which are not loaded from the store,
+     * which blocks the calling thread.
      *
-     * @return a {@link List} of all registered Items
+     * @return an unmodifiable {@link List} of all registered Items
      */
-    public @NonNull ArrayList<Item> getItems() {
-        return new ArrayList<>(items.values());
+    public @NonNull List<Item> getItems() {
+        return cache != null ? cache.scan(getSnapshot().ids()) : getSnapshot().items();
     }
 
     /**
      * Gets all registry keys.
      *
-     * @return a {@link List} of all registry keys
+     * @return an unmodifiable {@link List} of all registry keys
      */
-    public @NonNull ArrayList<String> getIds() {
-        return new ArrayList<>(items.keySet());
+    public @NonNull List<String> getIds() {
+        return getSnapshot().ids();
+    }
+
+    /**
+     * Gets the registry keys of all {@link Item}s of an {@link ItemType} and a {@link Rarity}.
+     *
+     * @param type   the ItemType of the Items, or null for any
+     * @param rarity the Rarity of the Items, or null for any
+     * @return an unmodifiable {@link List} of the matching registry keys in their registration order
+     */
+    public @NonNull List<String> getIds(final @Nullable ItemType type, final @Nullable Rarity rarity) {
+        if (type == null && rarity == null) {
+            return getIds();
+        }
+        synchronized (this) {
+            final @Nullable Set<String> found;
+
+            if (type == null) {
+                found = rarityIndex.get(rarity);
+            } else if (rarity == null) {
+                found = typeIndex.get(type);
+            } else {
+                found = typeRarityIndex.getOrDefault(type, Map.of()).get(rarity);
+            }
+            return found == null ? List.of() : List.copyOf(found);
+        }
+    }
+
+    /**
+     * Gets all registered {@link Item}s of an {@link ItemType} and a {@link Rarity}.
+     * <p>
+     * With an {@link ItemCache}, this reads all matching Items which are not loaded from the store,
+     * which blocks the calling thread.
+     *
+     * @param type   the ItemType of the Items, or null for any
+     * @param rarity the Rarity of the Items, or null for any
+     * @return an unmodifiable {@link List} of the matching Items in their registration order
+     */
+    public @NonNull List<Item> getItems(final @Nullable ItemType type, final @Nullable Rarity rarity) {
+        if (type == null && rarity == null) {
+            return getItems();
+        }
+        final @NonNull List<String> found = getIds(type, rarity);
+
+        return cache != null ? cache.scan(found) : Collections.unmodifiableList(getItemsFromIds(found));
     }
 
     /**
      * Checks whether a String id is a valid registry key.
+     * <p>
+     * This is a constant-time lookup, which neither locks the registry nor builds its {@link Snapshot}.
      *
      * @param id the id for which is to be checked
      * @return whether the id is a valid key in the registry
      */
-    public @NonNull Boolean isIdValid(final @NonNull String id) {
-        return getIds().contains(id);
+    public boolean isIdValid(final @NonNull String id) {
+        return idIndex.contains(id);
+    }
+
+    /**
+     * Gets the {@link Snapshot} of the current version of the registry,
+     * which is built if the registry changed since the last one.
+     *
+     * @return the Snapshot
+     */
+    public @NonNull Snapshot getSnapshot() {
+        final @Nullable Snapshot current = snapshot;
+
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                final @NonNull List<Item> snapshotItems = new ArrayList<>(cache == null ? ids.size() : 0);
+
+                if (cache == null) {
+                    for (final @NonNull String id : ids) {
+                        snapshotItems.add(items.get(id));
+                    }
+                }
+                snapshot = new Snapshot(
+                        version,
+                        Collections.unmodifiableList(new ArrayList<>(ids)),
+                        Collections.unmodifiableList(snapshotItems)
+                );
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Adds an id to the indexes of its {@link Category}, after removing it from the ones of its previous Category.
+     * <p>
+     * Must be called while holding the lock of the registry.
+     *
+     * @param id       the id of the Item
+     * @param category the Category of the Item
+     */
+    private void index(final @NonNull String id, final @NonNull Category category) {
+        final @Nullable Category previous = categories.get(id);
+
+        if (category.equals(previous)) {
+            return;
+        }
+        deindex(id);
+        categories.put(id, category);
+
+        typeIndex.computeIfAbsent(category.type(), type -> new LinkedHashSet<>()).add(id);
+        rarityIndex.computeIfAbsent(category.rarity(), rarity -> new LinkedHashSet<>()).add(id);
+        typeRarityIndex.computeIfAbsent(category.type(), type -> new EnumMap<>(Rarity.class))
+                .computeIfAbsent(category.rarity(), rarity -> new LinkedHashSet<>())
+                .add(id);
+    }
+
+    /**
+     * Removes an id from the indexes of its {@link Category}.
+     * <p>
+     * Must be called while holding the lock of the registry.
+     *
+     * @param id the id of the Item
+     */
+    private void deindex(final @NonNull String id) {
+        final @Nullable Category category = categories.remove(id);
+
+        if (category == null) {
+            return;
+        }
+        typeIndex.get(category.type()).remove(id);
+        rarityIndex.get(category.rarity()).remove(id);
+        typeRarityIndex.get(category.type()).get(category.rarity()).remove(id);
+    }
+
+    /**
+     * Advances the version of the registry and invalidates its {@link Snapshot}.
+     * <p>
+     * Must be called while holding the lock of the registry.
+     */
+    private void changed() {
+        version++;
+        snapshot = null;
+    }
+
+    /**
+     * An immutable view of the registry at one version.
+     *
+     * @param version the version of the registry
+     * @param ids     the ids of all Items in their registration order
+     * @param items   all resident {@link Item}s in their registration order, or none with an {@link ItemCache}
+     */
+    public record Snapshot(
+            long version,
+            @NonNull List<String> ids,
+            @NonNull List<Item> items
+    ) {
+    }
+
+    /**
+     * The {@link ItemType} and the {@link Rarity} of an Item, by which it is indexed.
+     *
+     * @param type   the ItemType of the Item
+     * @param rarity the Rarity of the Item
+     */
+    private record Category(
+            @NonNull ItemType type,
+            @NonNull Rarity rarity
+    ) {
     }
 }
@@ -4,55 +4,61 @@ import me.lokkee.skylands.core.utils.Constants;
 import org.bukkit.NamespacedKey;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.function.Supplier;
+
 /**
  * Holds all the item stats.
+ * <p>
+ * New item stats must only be appended, as their ordinals are stored in the packed stats of every item.
+ * <p>
+ * The {@link NamespacedKey}s are only resolved once they are needed, as they require the loaded plugin.
  */
 public enum ItemStat {
 
     /**
      * The attack damage item stat.
      */
-    ATTACK_DAMAGE("Attack Damage", "", Constants.NamespacedKeys.KEY_ATTACK_DAMAGE),
+    ATTACK_DAMAGE("Attack Damage", "", () -> Constants.NamespacedKeys.KEY_ATTACK_DAMAGE),
 
     /**
      * The attack speed item stat.
      */
-    ATTACK_SPEED("Attack Speed", "", Constants.NamespacedKeys.KEY_ATTACK_SPEED),
+    ATTACK_SPEED("Attack Speed", "", () -> Constants.NamespacedKeys.KEY_ATTACK_SPEED),
 
     /**
      * The magic damage item stat.
      */
-    MAGIC_DAMAGE("Magic Damage", "%", Constants.NamespacedKeys.KEY_MAGIC_DAMAGE),
+    MAGIC_DAMAGE("Magic Damage", "%", () -> Constants.NamespacedKeys.KEY_MAGIC_DAMAGE),
 
     /**
      * The defense item stat.
      */
-    DEFENSE("Defense", "", Constants.NamespacedKeys.KEY_DEFENSE),
+    DEFENSE("Defense", "", () -> Constants.NamespacedKeys.KEY_DEFENSE),
 
     /**
      * The health item stat.
      */
-    HEALTH("Health", "", Constants.NamespacedKeys.KEY_HEALTH),
+    HEALTH("Health", "", () -> Constants.NamespacedKeys.KEY_HEALTH),
 
     /**
      * The mana item stat.
      */
-    MANA("Mana", "", Constants.NamespacedKeys.KEY_MANA),
+    MANA("Mana", "", () -> Constants.NamespacedKeys.KEY_MANA),
 
     /**
      * The crit chance item stat.
      */
-    CRIT_CHANCE("Crit Chance", "%", Constants.NamespacedKeys.KEY_CRIT_CHANCE),
+    CRIT_CHANCE("Crit Chance", "%", () -> Constants.NamespacedKeys.KEY_CRIT_CHANCE),
 
     /**
      * The crit damage item stat.
      */
-    CRIT_DAMAGE("Crit Damage", "%", Constants.NamespacedKeys.KEY_CRIT_DAMAGE),
+    CRIT_DAMAGE("Crit Damage", "%", () -> Constants.NamespacedKeys.KEY_CRIT_DAMAGE),
 
     /**
      * The speed item stat.
      */
-    SPEED("Speed", "", Constants.NamespacedKeys.KEY_SPEED);
+    SPEED("Speed", "", () -> Constants.NamespacedKeys.KEY_SPEED);
 
     /**
      * The String name of the item stat.
@@ -68,21 +74,21 @@ public enum ItemStat {
     private final @NonNull String suffix;
 
     /**
-     * The {@link NamespacedKey} of the item stat.
+     * The {@link Supplier} of the {@link NamespacedKey} of the item stat.
      */
-    private final @NonNull NamespacedKey namespacedKey;
+    private final @NonNull Supplier<NamespacedKey> namespacedKey;
 
     /**
      * Constructs an {@link ItemStat}.
      *
      * @param name          the name of the item stat
      * @param suffix        the suffix of the item stat
-     * @param namespacedKey {@link NamespacedKey} of the item stat
+     * @param namespacedKey the {@link Supplier} of the {@link NamespacedKey} of the item stat
      */
     ItemStat(
             final @NonNull String name,
             final @NonNull String suffix,
-            final @NonNull NamespacedKey namespacedKey
+            final @NonNull Supplier<NamespacedKey> namespacedKey
     ) {
         this.name = name;
         this.suffix = suffix;
@@ -113,6 +119,6 @@ public enum ItemStat {
      * @return the NamespacedKey of the item stat
      */
     public @NonNull NamespacedKey getNamespacedKey() {
-        return namespacedKey;
+        return namespacedKey.get();
     }
 }
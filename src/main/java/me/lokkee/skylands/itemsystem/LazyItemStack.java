@@ -0,0 +1,188 @@
+package me.lokkee.skylands.itemsystem;
+
+import me.lokkee.skylands.core.utils.ItemSerializer;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * The {@link ItemStack} of an {@link Item}, which may be kept as its serialized bytes
+ * and is only deserialized once it is used for the first time.
+ * <p>
+ * In the soft mode, the deserialized ItemStack is only softly referenced,
+ * so the garbage collector can drop cold ItemStacks back to their bytes under memory pressure.
+ */
+public final class LazyItemStack {
+
+    /**
+     * The serialized bytes of the ItemStack, or null if it was only given deserialized.
+     */
+    private final byte @Nullable [] bytes;
+
+    /**
+     * Whether the deserialized ItemStack is only softly referenced.
+     */
+    private final boolean soft;
+
+    /**
+     * The strongly referenced ItemStack, or null if it is not yet deserialized or softly referenced.
+     */
+    private @Nullable ItemStack itemStack;
+
+    /**
+     * The softly referenced ItemStack, or null if it is not yet deserialized or strongly referenced.
+     */
+    private @Nullable SoftReference<ItemStack> softItemStack;
+
+    /**
+     * Constructs a {@link LazyItemStack}.
+     *
+     * @param bytes     the serialized bytes of the ItemStack, or null if it is given deserialized
+     * @param soft      whether the deserialized ItemStack is only softly referenced
+     * @param itemStack the deserialized ItemStack, or null if it is not yet deserialized
+     */
+    private LazyItemStack(final byte @Nullable [] bytes, final boolean soft, final @Nullable ItemStack itemStack) {
+        this.bytes = bytes;
+        this.soft = soft;
+
+        if (itemStack != null) {
+            keep(itemStack);
+        }
+    }
+
+    /**
+     * Creates a {@link LazyItemStack} of a deserialized {@link ItemStack}, which is kept as it is.
+     *
+     * @param itemStack the ItemStack
+     * @return the LazyItemStack
+     */
+    public static @NonNull LazyItemStack of(final @NonNull ItemStack itemStack) {
+        return new LazyItemStack(null, false, itemStack);
+    }
+
+    /**
+     * Creates a {@link LazyItemStack} of the serialized bytes of an {@link ItemStack},
+     * which is deserialized once it is used for the first time.
+     *
+     * @param bytes the serialized bytes of the ItemStack
+     * @param soft  whether the deserialized ItemStack is only softly referenced
+     * @return the LazyItemStack
+     */
+    public static @NonNull LazyItemStack ofBytes(final byte @NonNull [] bytes, final boolean soft) {
+        return new LazyItemStack(bytes, soft, null);
+    }
+
+    /**
+     * Creates a {@link LazyItemStack} of the serialized bytes of an {@link ItemStack} in a {@link Mode}.
+     *
+     * @param bytes the serialized bytes of the ItemStack
+     * @param mode  the Mode, in which the ItemStack is kept
+     * @return the LazyItemStack
+     */
+    public static @NonNull LazyItemStack load(final byte @NonNull [] bytes, final @NonNull Mode mode) {
+        return switch (mode) {
+            case EAGER -> of(ItemSerializer.ItemStackFromBytes(bytes));
+            case LAZY -> ofBytes(bytes, false);
+            case SOFT -> ofBytes(bytes, true);
+        };
+    }
+
+    /**
+     * Creates a {@link LazyItemStack} of another {@link ItemStack} in the same mode.
+     * <p>
+     * In the soft mode, the ItemStack is serialized right away, so it can be dropped back to its bytes.
+     *
+     * @param itemStack the other ItemStack
+     * @return the LazyItemStack
+     */
+    public @NonNull LazyItemStack replace(final @NonNull ItemStack itemStack) {
+        if (!soft) {
+            return of(itemStack);
+        }
+        return new LazyItemStack(ItemSerializer.ItemStackToBytes(itemStack), true, itemStack);
+    }
+
+    /**
+     * Gets the {@link ItemStack}, which is deserialized if it is not referenced anymore.
+     * <p>
+     * The ItemStack must not be modified.
+     *
+     * @return the ItemStack
+     */
+    public @NonNull ItemStack get() {
+        @Nullable ItemStack current = itemStack;
+
+        if (current == null && softItemStack != null) {
+            current = softItemStack.get();
+        }
+        if (current == null) {
+            current = ItemSerializer.ItemStackFromBytes(bytes);
+            keep(current);
+        }
+        return current;
+    }
+
+    /**
+     * Gets the serialized bytes of the {@link ItemStack},
+     * which are only serialized if it was given deserialized.
+     *
+     * @return the serialized bytes
+     */
+    public byte @NonNull [] getBytes() {
+        return bytes != null ? bytes : ItemSerializer.ItemStackToBytes(get());
+    }
+
+    /**
+     * Checks whether the {@link ItemStack} is deserialized and referenced right now.
+     *
+     * @return whether the ItemStack is deserialized
+     */
+    public boolean isMaterialized() {
+        return itemStack != null || (softItemStack != null && softItemStack.get() != null);
+    }
+
+    /**
+     * Gets the size of the kept serialized bytes.
+     *
+     * @return the amount of bytes, or 0 if they are not kept
+     */
+    public int getByteSize() {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    /**
+     * Keeps a deserialized {@link ItemStack} strongly or softly referenced.
+     *
+     * @param itemStack the deserialized ItemStack
+     */
+    private void keep(final @NonNull ItemStack itemStack) {
+        if (soft) {
+            softItemStack = new SoftReference<>(itemStack);
+        } else {
+            this.itemStack = itemStack;
+        }
+    }
+
+    /**
+     * The modes, in which loaded {@link ItemStack}s are kept.
+     */
+    public enum Mode {
+
+        /**
+         * The ItemStack is deserialized while loading and only kept deserialized.
+         */
+        EAGER,
+
+        /**
+         * The ItemStack is kept as bytes and deserialized on its first use, after which it is kept as well.
+         */
+        LAZY,
+
+        /**
+         * The ItemStack is kept as bytes and deserialized on its first use, after which it is only softly referenced.
+         */
+        SOFT
+    }
+}
@@ -0,0 +1,155 @@
+package me.lokkee.skylands.itemsystem.command;
+
+import cloud.commandframework.arguments.CommandArgument;
+import cloud.commandframework.arguments.parser.ArgumentParseResult;
+import cloud.commandframework.arguments.parser.ArgumentParser;
+import cloud.commandframework.context.CommandContext;
+import cloud.commandframework.exceptions.parsing.NoInputProvidedException;
+import me.lokkee.skylands.itemsystem.Item;
+import me.lokkee.skylands.itemsystem.ItemCache;
+import me.lokkee.skylands.itemsystem.ItemManager;
+import me.lokkee.skylands.itemsystem.ItemRegistry;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link CommandArgument}, which resolves an id to its {@link Item}.
+ * <p>
+ * The id is validated against the {@link ItemRegistry} while parsing,
+ * so a command handler always gets an existing Item.
+ * <p>
+ * Parsing runs on the main thread, so it never reads the store. If the Item is not
+ * in the {@link ItemCache}, it is loaded in the background and the command is rejected
+ * until then.
+ *
+ * @param <C> the command sender type
+ */
+public final class ItemArgument<C> extends CommandArgument<C, Item> {
+
+    /**
+     * Constructs an {@link ItemArgument}.
+     *
+     * @param name         the name of the argument
+     * @param itemRegistry the main {@link ItemRegistry} instance
+     * @param itemManager  the main {@link ItemManager} instance
+     */
+    private ItemArgument(
+            final @NonNull String name,
+            final @NonNull ItemRegistry itemRegistry,
+            final @NonNull ItemManager itemManager
+    ) {
+        super(true, name, new ItemParser<>(itemRegistry, itemManager), "", Item.class, null);
+    }
+
+    /**
+     * Creates a required {@link ItemArgument}.
+     *
+     * @param name         the name of the argument
+     * @param itemRegistry the main {@link ItemRegistry} instance
+     * @param itemManager  the main {@link ItemManager} instance
+     * @param <C>          the command sender type
+     * @return the ItemArgument
+     */
+    public static <C> @NonNull ItemArgument<C> of(
+            final @NonNull String name,
+            final @NonNull ItemRegistry itemRegistry,
+            final @NonNull ItemManager itemManager
+    ) {
+        return new ItemArgument<>(name, itemRegistry, itemManager);
+    }
+
+    /**
+     * The {@link ArgumentParser} of an {@link ItemArgument}.
+     *
+     * @param <C> the command sender type
+     */
+    public static final class ItemParser<C> implements ArgumentParser<C, Item> {
+
+        /**
+         * The main {@link ItemRegistry} instance,
+         * which is used to resolve the ids.
+         */
+        private final @NonNull ItemRegistry itemRegistry;
+
+        /**
+         * The main {@link ItemManager} instance,
+         * which loads the Items that are not in memory.
+         */
+        private final @NonNull ItemManager itemManager;
+
+        /**
+         * Constructs an {@link ItemParser}.
+         *
+         * @param itemRegistry the main {@link ItemRegistry} instance
+         * @param itemManager  the main {@link ItemManager} instance
+         */
+        public ItemParser(final @NonNull ItemRegistry itemRegistry, final @NonNull ItemManager itemManager) {
+            this.itemRegistry = itemRegistry;
+            this.itemManager = itemManager;
+        }
+
+        /**
+         * Parses the next input to the {@link Item} of that id.
+         *
+         * @param commandContext the {@link CommandContext} of the current command
+         * @param inputQueue     the queue of the remaining input
+         * @return the result containing the Item, or the failure if there is no Item with that id,
+         * if it is still being loaded or if it cannot be loaded right now
+         */
+        @Override
+        public @NonNull ArgumentParseResult<Item> parse(
+                final @NonNull CommandContext<C> commandContext,
+                final @NonNull Queue<String> inputQueue
+        ) {
+            final @Nullable String id = inputQueue.peek();
+
+            if (id == null) {
+                return ArgumentParseResult.failure(new NoInputProvidedException(ItemParser.class, commandContext));
+            }
+            if (!itemRegistry.isIdValid(id)) {
+                return ArgumentParseResult.failure(new IllegalArgumentException(
+                        String.format("There is no existing item with the id %s.", id)
+                ));
+            }
+            final @Nullable Item item = itemRegistry.getLoadedItem(id);
+
+            if (item == null) {
+                final @NonNull CompletableFuture<@Nullable Item> load = itemManager.getItemAsync(id);
+
+                if (load.isCompletedExceptionally()) {
+                    final @NonNull Throwable failure = load.handle((loaded, e) -> e).join();
+
+                    return ArgumentParseResult.failure(failure.getCause() != null ? failure.getCause() : failure);
+                }
+                return ArgumentParseResult.failure(new IllegalStateException(
+                        String.format("The item %s is being loaded, please try again in a moment.", id)
+                ));
+            }
+            inputQueue.remove();
+
+            return ArgumentParseResult.success(item);
+        }
+
+        /**
+         * Suggests all {@link Item} ids,
+         * which exist in the {@link ItemRegistry}.
+         *
+         * @param commandContext the {@link CommandContext} of the current command
+         * @param input          the current argument input
+         * @return the matching ids
+         */
+        @Override
+        public @NonNull List<String> suggestions(
+                final @NonNull CommandContext<C> commandContext,
+                final @NonNull String input
+        ) {
+            return itemRegistry.getIds().stream()
+                    .filter(id -> id.startsWith(input))
+                    .toList();
+        }
+    }
+}
@@ -14,6 +14,8 @@ import me.lokkee.skylands.core.utils.Constants;
 import me.lokkee.skylands.core.utils.itembuilder.ItemBuilder;
 import me.lokkee.skylands.itemsystem.*;
 import me.lokkee.skylands.itemsystem.gui.ItemGui;
+import me.lokkee.skylands.itemsystem.storage.ItemChangeDiscardedException;
+import me.lokkee.skylands.itemsystem.storage.ItemWriteBehind;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Material;
@@ -22,10 +24,13 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A command for everything {@link Item} related.
@@ -82,11 +87,7 @@ public final class ItemCommand {
 
         manager.command(builder
                 .literal("give", ArgumentDescription.of("Gives the build itemstack of an item"))
-                .argument(StringArgument
-                        .<CommandSender>newBuilder("id")
-                        .withSuggestionsProvider(this::itemIdSuggestions)
-                        .build()
-                )
+                .argument(ItemArgument.of("item", itemRegistry, itemManager))
                 .argument(PlayerArgument.optional("player"))
                 .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".give")
                 .handler(this::processGive)
@@ -127,11 +128,7 @@ public final class ItemCommand {
         manager.command(builder
                 .literal("get")
                 .literal("itemstack", ArgumentDescription.of("Gets the internal itemstack of an item"))
-                .argument(StringArgument
-                        .<CommandSender>newBuilder("id")
-                        .withSuggestionsProvider(this::itemIdSuggestions)
-                        .build()
-                )
+                .argument(ItemArgument.of("item", itemRegistry, itemManager))
                 .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".get.itemstack")
                 .handler(this::processGetItemStack)
         );
@@ -140,11 +137,7 @@ public final class ItemCommand {
 
         manager.command(setSubCommand
                 .literal("rarity", ArgumentDescription.of("Sets the rarity of an item"))
-                .argument(StringArgument
-                        .<CommandSender>newBuilder("id")
-                        .withSuggestionsProvider(this::itemIdSuggestions)
-                        .build()
-                )
+                .argument(ItemArgument.of("item", itemRegistry, itemManager))
                 .argument(EnumArgument.of(Rarity.class, "rarity"))
                 .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".set.rarity")
                 .handler(this::processSetRarity)
@@ -152,22 +145,14 @@ public final class ItemCommand {
 
         manager.command(setSubCommand
                 .literal("itemstack", ArgumentDescription.of("Sets the itemstack of an item"))
-                .argument(StringArgument
-                        .<CommandSender>newBuilder("id")
-                        .withSuggestionsProvider(this::itemIdSuggestions)
-                        .build()
-                )
+                .argument(ItemArgument.of("item", itemRegistry, itemManager))
                 .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".set.itemstack")
                 .handler(this::processSetItemStack)
         );
 
         manager.command(setSubCommand
                 .literal("stat", ArgumentDescription.of("Sets the value of of an stat of an item"))
-                .argument(StringArgument
-                        .<CommandSender>newBuilder("id")
-                        .withSuggestionsProvider(this::itemIdSuggestions)
-                        .build()
-                )
+                .argument(ItemArgument.of("item", itemRegistry, itemManager))
                 .argument(EnumArgument.of(ItemStat.class, "stat"))
                 .argument(DoubleArgument.of("value"))
                 .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".set.stat")
@@ -176,31 +161,36 @@ public final class ItemCommand {
 
         manager.command(builder
                 .literal("delete", ArgumentDescription.of("Deletes an item"))
-                .argument(StringArgument
-                        .<CommandSender>newBuilder("id")
-                        .withSuggestionsProvider(this::itemIdSuggestions)
-                        .build()
-                )
+                .argument(ItemArgument.of("item", itemRegistry, itemManager))
                 .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".delete")
                 .handler(this::processDeleteItem)
         );
-    }
 
-    /**
-     * Suggests all {@link Item} ids,
-     * which exist in the {@link ItemRegistry}.
-     *
-     * @param context the {@link CommandContext} of the current command
-     * @param input   the current argument input
-     */
-    private @NonNull List<String> itemIdSuggestions(
-            final @NonNull CommandContext<CommandSender> context,
-            final @NonNull String input
-    ) {
-        final @NonNull List<String> ids = itemRegistry.getIds();
-        ids.removeIf(id -> !id.startsWith(input));
+        manager.command(builder
+                .literal("autosave", ArgumentDescription.of("Shows the progress of the item autosave"))
+                .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".autosave")
+                .handler(this::processAutosave)
+        );
+
+        manager.command(builder
+                .literal("export", ArgumentDescription.of("Exports all items to a file"))
+                .argument(StringArgument.of("file"))
+                .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".export")
+                .handler(this::processExport)
+        );
 
-        return ids;
+        manager.command(builder
+                .literal("import", ArgumentDescription.of("Imports all items of a file"))
+                .argument(StringArgument.of("file"))
+                .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".import")
+                .handler(this::processImport)
+        );
+
+        manager.command(builder
+                .literal("cache", ArgumentDescription.of("Shows the statistics of the item cache"))
+                .permission(Constants.Permissions.ROOT_ITEMSYSTEM + ".cache")
+                .handler(this::processCache)
+        );
     }
 
     /**
@@ -221,7 +211,7 @@ public final class ItemCommand {
                     .append(Component.text(target.getName(), Constants.Text.STYLE_HIGHLIGHTED))
             ));
         }
-        new ItemGui(itemRegistry).open(target);
+        new ItemGui(itemRegistry, itemManager).open(target);
     }
 
     /**
@@ -232,14 +222,9 @@ public final class ItemCommand {
     private void processGive(final @NonNull CommandContext<CommandSender> context) {
         final @NonNull Player player = (Player) context.getSender();
 
-        final @NonNull String id = context.get("id");
+        final @NonNull Item item = context.get("item");
+        final @NonNull String id = item.getId();
 
-        if (!itemRegistry.isIdValid(id)) {
-            player.sendMessage(Constants.Text.PREFIX.append(Component
-                    .text("There is no existing item with such an id.", Constants.Text.STYLE_ALERT)
-            ));
-            return;
-        }
         @NonNull Player target = player;
 
         if (context.contains("player")) {
@@ -252,7 +237,7 @@ public final class ItemCommand {
                     .append(Component.text(target.getName(), Constants.Text.STYLE_HIGHLIGHTED))
             ));
         }
-        target.getInventory().addItem(itemRegistry.getItemFromId(id).getBuildItemStack());
+        target.getInventory().addItem(item.getBuildItemStack());
     }
 
     /**
@@ -280,7 +265,7 @@ public final class ItemCommand {
             ));
             return;
         }
-        if (itemRegistry.getIds().contains(id)) {
+        if (itemRegistry.isIdValid(id)) {
             player.sendMessage(Constants.Text.PREFIX.append(Component
                     .text("There is already an existing item with such an id.", Constants.Text.STYLE_ALERT)
             ));
@@ -292,12 +277,16 @@ public final class ItemCommand {
             ));
             return;
         }
-        itemManager.createItem(id, type, rarity, itemStack);
-
-        player.sendMessage(Constants.Text.PREFIX.append(Component
-                .text("Successfully created the item ", Constants.Text.STYLE_DEFAULT)
-                .append(rarity.applyColor(Component.text(id)))
-        ));
+        itemManager.createItemAsync(id, type, rarity, itemStack).whenComplete((item, e) -> {
+            if (e != null) {
+                sendSaveFailure(player, id, e);
+                return;
+            }
+            player.sendMessage(Constants.Text.PREFIX.append(Component
+                    .text("Successfully created the item ", Constants.Text.STYLE_DEFAULT)
+                    .append(rarity.applyColor(Component.text(id)))
+            ));
+        });
     }
 
     /**
@@ -411,15 +400,9 @@ public final class ItemCommand {
     private void processGetItemStack(final @NonNull CommandContext<CommandSender> context) {
         final @NonNull Player player = (Player) context.getSender();
 
-        final @NonNull String id = context.get("id");
+        final @NonNull Item item = context.get("item");
+        final @NonNull String id = item.getId();
 
-        if (!itemRegistry.isIdValid(id)) {
-            player.sendMessage(Constants.Text.PREFIX.append(Component
-                    .text("There is no existing item with such an id.", Constants.Text.STYLE_ALERT)
-            ));
-            return;
-        }
-        final @NonNull Item item = itemRegistry.getItemFromId(id);
         player.getInventory().addItem(item.getItemStack());
 
         player.sendMessage(Constants.Text.PREFIX.append(Component
@@ -436,7 +419,8 @@ public final class ItemCommand {
     private void processSetItemStack(final @NonNull CommandContext<CommandSender> context) {
         final @NonNull Player player = (Player) context.getSender();
 
-        final @NonNull String id = context.get("id");
+        final @NonNull Item item = context.get("item");
+        final @NonNull String id = item.getId();
         final @NonNull ItemStack itemStack = player.getInventory().getItemInMainHand();
 
         if (itemStack.getType().equals(Material.AIR)) {
@@ -451,13 +435,7 @@ public final class ItemCommand {
             ));
             return;
         }
-        if (!itemRegistry.isIdValid(id)) {
-            player.sendMessage(Constants.Text.PREFIX.append(Component
-                    .text("There is no existing item with such an id.", Constants.Text.STYLE_ALERT)
-            ));
-            return;
-        }
-        itemManager.setItemStack(id, itemStack);
+        itemManager.setItemStack(item, itemStack);
 
         player.sendMessage(Constants.Text.PREFIX.append(Component
                 .text("Set the internal itemstack of ", Constants.Text.STYLE_DEFAULT)
@@ -473,16 +451,11 @@ public final class ItemCommand {
     private void processSetRarity(final @NonNull CommandContext<CommandSender> context) {
         final @NonNull Player player = (Player) context.getSender();
 
-        final @NonNull String id = context.get("id");
+        final @NonNull Item item = context.get("item");
+        final @NonNull String id = item.getId();
         final @NonNull Rarity rarity = context.get("rarity");
 
-        if (!itemRegistry.isIdValid(id)) {
-            player.sendMessage(Constants.Text.PREFIX.append(Component
-                    .text("There is no existing item with such an id.", Constants.Text.STYLE_ALERT)
-            ));
-            return;
-        }
-        itemManager.setRarity(id, rarity);
+        itemManager.setRarity(item, rarity);
 
         player.sendMessage(Constants.Text.PREFIX.append(Component
                 .text("Set the rarity of ", Constants.Text.STYLE_DEFAULT)
@@ -500,49 +473,266 @@ public final class ItemCommand {
     private void processSetStat(final @NonNull CommandContext<CommandSender> context) {
         final @NonNull Player player = (Player) context.getSender();
 
-        final @NonNull String id = context.get("id");
+        final @NonNull Item item = context.get("item");
+        final @NonNull String id = item.getId();
         final @NonNull ItemStat stat = context.get("stat");
         final double value = context.get("value");
 
-        if (!itemRegistry.isIdValid(id)) {
+        itemManager.setStatAsync(item, stat, value).whenComplete((result, e) -> {
+            if (e != null) {
+                sendSaveFailure(player, id, e);
+                return;
+            }
+            player.sendMessage(Constants.Text.PREFIX.append(Component
+                    .text("Set the ", Constants.Text.STYLE_DEFAULT)
+                    .append(Component.text(stat.getName(), Constants.Text.STYLE_HIGHLIGHTED))
+                    .append(Component.text(" value of ", Constants.Text.STYLE_DEFAULT))
+                    .append(Component.text(id, Constants.Text.STYLE_HIGHLIGHTED))
+                    .append(Component.text(" to ", Constants.Text.STYLE_DEFAULT))
+                    .append(Component.text(value, Constants.Text.STYLE_HIGHLIGHTED))
+            ));
+        });
+    }
+
+    /**
+     * Deletes an {@link Item}.
+     *
+     * @param context the context of the given command
+     */
+    private void processDeleteItem(final @NonNull CommandContext<CommandSender> context) {
+        final @NonNull Player player = (Player) context.getSender();
+
+        final @NonNull Item item = context.get("item");
+        final @NonNull String id = item.getId();
+
+        itemManager.deleteItemAsync(item).whenComplete((result, e) -> {
+            if (e != null) {
+                sendSaveFailure(player, id, e);
+                return;
+            }
+            player.sendMessage(Constants.Text.PREFIX.append(Component
+                    .text("Successfully deleted the item ", Constants.Text.STYLE_DEFAULT)
+                    .append(Component.text(id, Constants.Text.STYLE_ALERT))
+            ));
+        });
+    }
+
+    /**
+     * Shows the progress and the lag of the item autosave.
+     *
+     * @param context the context of the given command
+     */
+    private void processAutosave(final @NonNull CommandContext<CommandSender> context) {
+        final @NonNull Player player = (Player) context.getSender();
+
+        final ItemWriteBehind.@NonNull Status status = itemManager.getSaveStatus();
+
+        player.sendMessage(Constants.Text.PREFIX.append(Component
+                .text("Pending items: ", Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(status.pending(), Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(", lag: ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(status.lagMillis() + " ms", Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(", writes in flight: ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(status.pendingWrites(), Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(", conflicts: ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(status.conflicts(), Constants.Text.STYLE_HIGHLIGHTED))
+        ));
+        if (status.degraded()) {
             player.sendMessage(Constants.Text.PREFIX.append(Component
-                    .text("There is no existing item with such an id.", Constants.Text.STYLE_ALERT)
+                    .text("The database is unreachable, all changes are buffered until it is reachable again.", Constants.Text.STYLE_ALERT)
             ));
+        }
+        player.sendMessage(Constants.Text.PREFIX.append(Component
+                .text("Current round: ", Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(
+                        (status.roundSize() - status.roundRemaining()) + "/" + status.roundSize(),
+                        Constants.Text.STYLE_HIGHLIGHTED
+                ))
+        ));
+        player.sendMessage(Constants.Text.PREFIX.append(Component
+                .text("Last round: ", Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(status.lastRoundSize() + " items", Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(" in ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(status.lastRoundTicks() + " ticks", Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(", longest tick ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(
+                        String.format("%.2f/%.2f ms", status.lastRoundMaxTickMillis(), status.tickBudgetMillis()),
+                        Constants.Text.STYLE_HIGHLIGHTED
+                ))
+        ));
+    }
+
+    /**
+     * Exports all {@link Item}s to a file in the transfers folder.
+     *
+     * @param context the context of the given command
+     */
+    private void processExport(final @NonNull CommandContext<CommandSender> context) {
+        final @NonNull Player player = (Player) context.getSender();
+
+        final @NonNull String file = context.get("file");
+        final long start = System.nanoTime();
+
+        try {
+            itemManager.exportItems(file, count -> sendTransferProgress(player, "Exported ", count))
+                    .whenComplete((count, e) -> sendTransferResult(player, "Exported ", file, count, e, start));
+        } catch (final @NonNull IllegalArgumentException e) {
+            player.sendMessage(Constants.Text.PREFIX.append(Component.text(e.getMessage(), Constants.Text.STYLE_ALERT)));
             return;
         }
-        itemManager.setStat(id, stat, value);
+        player.sendMessage(Constants.Text.PREFIX.append(Component
+                .text("Exporting all items to ", Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(file, Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text("...", Constants.Text.STYLE_DEFAULT))
+        ));
+    }
 
+    /**
+     * Imports all {@link Item}s of a file in the transfers folder.
+     *
+     * @param context the context of the given command
+     */
+    private void processImport(final @NonNull CommandContext<CommandSender> context) {
+        final @NonNull Player player = (Player) context.getSender();
+
+        final @NonNull String file = context.get("file");
+        final long start = System.nanoTime();
+
+        try {
+            itemManager.importItems(file, count -> sendTransferProgress(player, "Imported ", count))
+                    .whenComplete((count, e) -> sendTransferResult(player, "Imported ", file, count, e, start));
+        } catch (final @NonNull IllegalArgumentException e) {
+            player.sendMessage(Constants.Text.PREFIX.append(Component.text(e.getMessage(), Constants.Text.STYLE_ALERT)));
+            return;
+        }
         player.sendMessage(Constants.Text.PREFIX.append(Component
-                .text("Set the ", Constants.Text.STYLE_DEFAULT)
-                .append(Component.text(stat.getName(), Constants.Text.STYLE_HIGHLIGHTED))
-                .append(Component.text(" value of ", Constants.Text.STYLE_DEFAULT))
-                .append(Component.text(id, Constants.Text.STYLE_HIGHLIGHTED))
-                .append(Component.text(" to ", Constants.Text.STYLE_DEFAULT))
-                .append(Component.text(value, Constants.Text.STYLE_HIGHLIGHTED))
+                .text("Importing all items of ", Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(file, Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text("...", Constants.Text.STYLE_DEFAULT))
         ));
     }
 
     /**
-     * Deletes an {@link Item}.
+     * Informs a {@link Player} about the progress of an export or import.
+     *
+     * @param player the Player who is to be informed
+     * @param action the past tense of the transfer, followed by a space
+     * @param count  the amount of transferred {@link Item}s so far
+     */
+    private void sendTransferProgress(final @NonNull Player player, final @NonNull String action, final int count) {
+        player.sendMessage(Constants.Text.PREFIX.append(Component
+                .text(action, Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(count, Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(" items so far...", Constants.Text.STYLE_DEFAULT))
+        ));
+    }
+
+    /**
+     * Informs a {@link Player} about the result of an export or import.
+     *
+     * @param player the Player who is to be informed
+     * @param action the past tense of the transfer, followed by a space
+     * @param file   the name of the transferred file
+     * @param count  the amount of transferred {@link Item}s, or null if the transfer failed
+     * @param e      the cause of the failure, or null if the transfer succeeded
+     * @param start  the {@link System#nanoTime()} at the start of the transfer
+     */
+    private void sendTransferResult(
+            final @NonNull Player player,
+            final @NonNull String action,
+            final @NonNull String file,
+            final @Nullable Integer count,
+            final @Nullable Throwable e,
+            final long start
+    ) {
+        if (e != null) {
+            final @NonNull Throwable cause = e.getCause() != null ? e.getCause() : e;
+
+            player.sendMessage(Constants.Text.PREFIX.append(Component
+                    .text("The transfer of ", Constants.Text.STYLE_ALERT)
+                    .append(Component.text(file, Constants.Text.STYLE_HIGHLIGHTED))
+                    .append(Component.text(" failed: " + cause.getMessage(), Constants.Text.STYLE_ALERT))
+            ));
+            return;
+        }
+        player.sendMessage(Constants.Text.PREFIX.append(Component
+                .text(action, Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(count, Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(" items in ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms",
+                        Constants.Text.STYLE_HIGHLIGHTED
+                ))
+        ));
+    }
+
+    /**
+     * Shows the size, the hit rate and the evictions of the item cache.
      *
      * @param context the context of the given command
      */
-    private void processDeleteItem(final @NonNull CommandContext<CommandSender> context) {
+    private void processCache(final @NonNull CommandContext<CommandSender> context) {
         final @NonNull Player player = (Player) context.getSender();
 
-        final @NonNull String id = context.get("id");
+        final ItemCache.@Nullable Statistics statistics = itemManager.getCacheStatistics();
 
-        if (!itemRegistry.isIdValid(id)) {
+        if (statistics == null) {
             player.sendMessage(Constants.Text.PREFIX.append(Component
-                    .text("There is no existing item with such an id.", Constants.Text.STYLE_ALERT)
+                    .text("The item cache is disabled, all items are kept in memory.", Constants.Text.STYLE_DEFAULT)
             ));
             return;
         }
-        itemManager.deleteItem(id);
+        player.sendMessage(Constants.Text.PREFIX.append(Component
+                .text("Cached items: ", Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(
+                        statistics.loaded() + "/" + statistics.capacity(),
+                        Constants.Text.STYLE_HIGHLIGHTED
+                ))
+                .append(Component.text(" of ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(statistics.total(), Constants.Text.STYLE_HIGHLIGHTED))
+        ));
+        player.sendMessage(Constants.Text.PREFIX.append(Component
+                .text("Hits: ", Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(statistics.hits(), Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(", misses: ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(statistics.misses(), Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(", hit rate: ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(
+                        String.format("%.1f%%", statistics.hitRate() * 100),
+                        Constants.Text.STYLE_HIGHLIGHTED
+                ))
+        ));
+        player.sendMessage(Constants.Text.PREFIX.append(Component
+                .text("Loads: ", Constants.Text.STYLE_DEFAULT)
+                .append(Component.text(statistics.loads(), Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(", evictions: ", Constants.Text.STYLE_DEFAULT))
+                .append(Component.text(statistics.evictions(), Constants.Text.STYLE_HIGHLIGHTED))
+        ));
+    }
 
+    /**
+     * Informs a {@link Player}, that the change of an {@link Item} could not be saved to the database,
+     * either yet, or at all, if the change was discarded.
+     *
+     * @param player the Player who is to be informed
+     * @param id     the id of the changed Item
+     * @param e      the failure of the save
+     */
+    private void sendSaveFailure(final @NonNull Player player, final @NonNull String id, final @NonNull Throwable e) {
+        final @NonNull Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+        if (cause instanceof ItemChangeDiscardedException) {
+            player.sendMessage(Constants.Text.PREFIX.append(Component
+                    .text("The change of ", Constants.Text.STYLE_ALERT)
+                    .append(Component.text(id, Constants.Text.STYLE_HIGHLIGHTED))
+                    .append(Component.text(" was not saved to the database. " + cause.getMessage(), Constants.Text.STYLE_ALERT))
+            ));
+            return;
+        }
         player.sendMessage(Constants.Text.PREFIX.append(Component
-                .text("Successfully deleted the item ", Constants.Text.STYLE_DEFAULT)
-                .append(Component.text(id, Constants.Text.STYLE_ALERT))
+                .text("The change of ", Constants.Text.STYLE_ALERT)
+                .append(Component.text(id, Constants.Text.STYLE_HIGHLIGHTED))
+                .append(Component.text(" could not be saved to the database yet. It will be retried.", Constants.Text.STYLE_ALERT))
         ));
     }
 }
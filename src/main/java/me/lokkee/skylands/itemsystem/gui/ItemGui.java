@@ -10,10 +10,13 @@ import com.github.stefvanschie.inventoryframework.pane.Pane;
 import com.github.stefvanschie.inventoryframework.pane.StaticPane;
 import com.github.stefvanschie.inventoryframework.pane.util.Mask;
 import me.lokkee.skylands.core.Rarity;
+import me.lokkee.skylands.core.database.DatabaseUnavailableException;
 import me.lokkee.skylands.core.utils.Constants;
 import me.lokkee.skylands.core.utils.TextUtil;
 import me.lokkee.skylands.core.utils.itembuilder.ItemBuilder;
 import me.lokkee.skylands.itemsystem.Item;
+import me.lokkee.skylands.itemsystem.ItemCache;
+import me.lokkee.skylands.itemsystem.ItemManager;
 import me.lokkee.skylands.itemsystem.ItemRegistry;
 import me.lokkee.skylands.itemsystem.ItemType;
 import net.kyori.adventure.text.Component;
@@ -25,19 +28,36 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 
 /**
  * The item gui - an interactive way to manage and oversee all {@link Item}s at once.
+ * <p>
+ * The {@link Item}s are loaded in the background before the gui is shown. Without a search
+ * or a sort filter, only the Items of the shown page are loaded, otherwise all Items
+ * which match the type and rarity filters are scanned.
  */
 public final class ItemGui {
 
+    /**
+     * The amount of {@link Item}s, which are shown on one page.
+     */
+    private static final int PAGE_SIZE = 7 * 4;
+
     /**
      * The main {@link ItemRegistry} instance,
      * which is used for gui functionality.
      */
     private final @NonNull ItemRegistry itemRegistry;
 
+    /**
+     * The main {@link ItemManager} instance,
+     * which loads the shown {@link Item}s.
+     */
+    private final @NonNull ItemManager itemManager;
+
     /**
      * The filter for {@link ItemType}.
      * <p>
@@ -67,6 +87,11 @@ public final class ItemGui {
      */
     private final @Nullable String searchFilter;
 
+    /**
+     * The index of the shown page, starting at 0.
+     */
+    private final int page;
+
     /**
      * The main gui object.
      */
@@ -76,18 +101,20 @@ public final class ItemGui {
      * Constructs an {@link ItemGui}.
      *
      * @param itemRegistry the main {@link ItemRegistry} instance
+     * @param itemManager  the main {@link ItemManager} instance
      */
     public ItemGui(
-            final @NonNull ItemRegistry itemRegistry
+            final @NonNull ItemRegistry itemRegistry,
+            final @NonNull ItemManager itemManager
     ) {
         searchFilter = null;
         sortFilter = null;
         typeFilter = null;
         rarityFilter = null;
+        page = 0;
 
         this.itemRegistry = itemRegistry;
-
-        constructGui();
+        this.itemManager = itemManager;
     }
 
     /**
@@ -99,29 +126,35 @@ public final class ItemGui {
      * @param sortFilter   the active {@link SortFilter} of the gui
      * @param typeFilter   the active type filter {@link ItemType} of the gui
      * @param rarityFilter the active rarity filter {@link Rarity} of the gui
+     * @param page         the index of the shown page
      * @param itemRegistry the main {@link ItemRegistry} instance
+     * @param itemManager  the main {@link ItemManager} instance
      */
     private ItemGui(
             final @Nullable String searchFilter,
             final @Nullable SortFilter sortFilter,
             final @Nullable ItemType typeFilter,
             final @Nullable Rarity rarityFilter,
-            final @NonNull ItemRegistry itemRegistry
+            final int page,
+            final @NonNull ItemRegistry itemRegistry,
+            final @NonNull ItemManager itemManager
     ) {
         this.searchFilter = searchFilter;
         this.sortFilter = sortFilter;
         this.typeFilter = typeFilter;
         this.rarityFilter = rarityFilter;
+        this.page = page;
 
         this.itemRegistry = itemRegistry;
-
-        constructGui();
+        this.itemManager = itemManager;
     }
 
     /**
      * Constructs the gui and all its buttons and functionality.
+     *
+     * @param shown the loaded {@link Page}, which is shown
      */
-    private void constructGui() {
+    private void constructGui(final @NonNull Page shown) {
         gui = new ChestGui(6, ComponentHolder.of(TextUtil.toBoldComponentWithSystemGradient("Items Menu")));
 
         gui.setOnGlobalClick(event -> event.setCancelled(true));
@@ -149,7 +182,7 @@ public final class ItemGui {
                 event.getWhoClicked().getInventory().addItem(event.getCurrentItem());
         });
 
-        itemsPane.populateWithItemStacks(getFilteredItemStacks(itemRegistry.getItems()));
+        itemsPane.populateWithItemStacks(shown.itemStacks());
 
         gui.addPane(itemsPane);
 
@@ -161,7 +194,7 @@ public final class ItemGui {
                         Component.text("A database of every single existing item.", Constants.Text.STYLE_DEFAULT),
                         Component.empty(),
                         Component.text("Currently existing items: ", Constants.Text.STYLE_DEFAULT)
-                                .append(Component.text(itemRegistry.getItems().size(), Constants.Text.STYLE_HIGHLIGHTED))
+                                .append(Component.text(itemRegistry.getIds().size(), Constants.Text.STYLE_HIGHLIGHTED))
                 ).build();
 
         infoPane.addItem(new GuiItem(infoItem), 0, 0);
@@ -186,7 +219,7 @@ public final class ItemGui {
                 .name(Component.text("Go Back", Constants.Text.STYLE_HIGHLIGHTED))
                 .lore(Component
                         .text("Page: ", Constants.Text.STYLE_DEFAULT)
-                        .append(Component.text(0 + "/" + itemsPane.getPages(),
+                        .append(Component.text(shown.index() + "/" + shown.count(),
                                 Constants.Text.STYLE_HIGHLIGHTED
                         ))
                 ).build();
@@ -196,49 +229,23 @@ public final class ItemGui {
                 .name(Component.text("Go Forward", Constants.Text.STYLE_HIGHLIGHTED))
                 .lore(Component
                         .text("Page: ", Constants.Text.STYLE_DEFAULT)
-                        .append(Component.text(2 + "/" + itemsPane.getPages(),
+                        .append(Component.text((shown.index() + 2) + "/" + shown.count(),
                                 Constants.Text.STYLE_HIGHLIGHTED
                         ))
                 ).build();
 
-        backPane.addItem(new GuiItem(backItem, event -> {
-            itemsPane.setPage(itemsPane.getPage() - 1);
-
-            Objects.requireNonNull(backItem.lore()).set(0, Component
-                    .text("Page: ", Constants.Text.STYLE_DEFAULT)
-                    .append(Component.text(itemsPane.getPage() + "/" + itemsPane.getPages(),
-                            Constants.Text.STYLE_HIGHLIGHTED
-                    ))
-            );
-
-            if (itemsPane.getPage() == 0) {
-                backPane.setVisible(false);
-            }
-
-            forwardPane.setVisible(true);
-            gui.update();
-        }), 0, 0);
-
-        backPane.setVisible(false);
-        if (itemsPane.getPages() <= 1) forwardPane.setVisible(false);
-
-        forwardPane.addItem(new GuiItem(forwardItem, event -> {
-            itemsPane.setPage(itemsPane.getPage() + 1);
-
-            Objects.requireNonNull(backItem.lore()).set(0, Component
-                    .text("Page: ", Constants.Text.STYLE_DEFAULT)
-                    .append(Component.text((itemsPane.getPage() + 2) + "/" + itemsPane.getPages(),
-                            Constants.Text.STYLE_HIGHLIGHTED
-                    ))
-            );
+        backPane.addItem(new GuiItem(backItem, event ->
+                new ItemGui(searchFilter, sortFilter, typeFilter, rarityFilter, shown.index() - 1, itemRegistry, itemManager)
+                        .open((Player) event.getWhoClicked())
+        ), 0, 0);
 
-            if (itemsPane.getPage() == itemsPane.getPages() - 1) {
-                forwardPane.setVisible(false);
-            }
+        forwardPane.addItem(new GuiItem(forwardItem, event ->
+                new ItemGui(searchFilter, sortFilter, typeFilter, rarityFilter, shown.index() + 1, itemRegistry, itemManager)
+                        .open((Player) event.getWhoClicked())
+        ), 0, 0);
 
-            backPane.setVisible(true);
-            gui.update();
-        }), 0, 0);
+        backPane.setVisible(shown.index() > 0);
+        forwardPane.setVisible(shown.index() < shown.count() - 1);
 
         gui.addPane(backPane);
         gui.addPane(forwardPane);
@@ -274,7 +281,7 @@ public final class ItemGui {
             final @NonNull Player player = (Player) event.getWhoClicked();
 
             if (event.isRightClick()) {
-                new ItemGui(null, sortFilter, typeFilter, rarityFilter, itemRegistry).open(player);
+                new ItemGui(null, sortFilter, typeFilter, rarityFilter, 0, itemRegistry, itemManager).open(player);
                 return;
             }
             openSearchGui(player);
@@ -316,7 +323,7 @@ public final class ItemGui {
             else if (index == -1) newSortFilter = values.get(values.size() - 1);
             else newSortFilter = values.get(index);
 
-            new ItemGui(searchFilter, newSortFilter, typeFilter, rarityFilter, itemRegistry).open((Player) event.getWhoClicked());
+            new ItemGui(searchFilter, newSortFilter, typeFilter, rarityFilter, 0, itemRegistry, itemManager).open((Player) event.getWhoClicked());
         }), 3, 0);
 
         final @NonNull List<Component> typeFilterLore = new ArrayList<>();
@@ -354,7 +361,7 @@ public final class ItemGui {
             else if (index == -1) newTypeFilter = values.get(values.size() - 1);
             else newTypeFilter = values.get(index);
 
-            new ItemGui(searchFilter, sortFilter, newTypeFilter, rarityFilter, itemRegistry).open((Player) event.getWhoClicked());
+            new ItemGui(searchFilter, sortFilter, newTypeFilter, rarityFilter, 0, itemRegistry, itemManager).open((Player) event.getWhoClicked());
         }), 5, 0);
 
         final @NonNull List<Component> rarityFilterLore = new ArrayList<>();
@@ -393,7 +400,7 @@ public final class ItemGui {
             else if (index == -1) newRarityFilter = values.get(values.size() - 1);
             else newRarityFilter = values.get(index);
 
-            new ItemGui(searchFilter, sortFilter, typeFilter, newRarityFilter, itemRegistry).open((Player) event.getWhoClicked());
+            new ItemGui(searchFilter, sortFilter, typeFilter, newRarityFilter, 0, itemRegistry, itemManager).open((Player) event.getWhoClicked());
         }), 6, 0);
 
         gui.addPane(toolsPane);
@@ -425,7 +432,7 @@ public final class ItemGui {
         final @NonNull StaticPane backPane = new StaticPane(0, 0, 1, 1);
 
         backPane.addItem(new GuiItem(backItem, event ->
-                new ItemGui(searchFilter, sortFilter, typeFilter, rarityFilter, itemRegistry).open(player)
+                new ItemGui(searchFilter, sortFilter, typeFilter, rarityFilter, page, itemRegistry, itemManager).open(player)
         ), 0, 0);
 
         final @NonNull StaticPane backgroundPane = new StaticPane(0, 0, 1, 1);
@@ -437,7 +444,7 @@ public final class ItemGui {
         confirmPane.addItem(new GuiItem(confirmItem, event -> {
             final @NonNull String newSearchFilter = searchGui.getRenameText();
 
-            new ItemGui(newSearchFilter, sortFilter, typeFilter, rarityFilter, itemRegistry).open(player);
+            new ItemGui(newSearchFilter, sortFilter, typeFilter, rarityFilter, 0, itemRegistry, itemManager).open(player);
         }), 0, 0);
 
         searchGui.getFirstItemComponent().addPane(backgroundPane);
@@ -448,26 +455,59 @@ public final class ItemGui {
     }
 
     /**
-     * Filters out and sorts the {@link Item}s based on the active filters.
+     * Loads the shown {@link Page} of the {@link Item}s, which match the active filters.
      * <p>
-     * Outputs a {@link List} of the Items {@link Item#getBuildItemStack()}s.
+     * The type and rarity filters are answered by the indexes of the {@link ItemRegistry}.
+     * Without a search or a sort filter, only the Items of the page are read, otherwise
+     * all matching Items are read, as the page depends on all of them.
      *
-     * @param items the list of Items to be filtered and sorted
+     * @return a {@link CompletableFuture}, which completes on the main thread with the Page
      */
-    private @NonNull List<ItemStack> getFilteredItemStacks(final @NonNull List<Item> items) {
-        if (searchFilter != null) {
-            items.removeIf(item -> !StringUtils.containsIgnoreCase(item.getName(), searchFilter));
-        }
-        if (typeFilter != null) {
-            items.removeIf(item -> item.getType() != typeFilter);
-        }
-        if (rarityFilter != null) {
-            items.removeIf(item -> item.getRarity() != rarityFilter);
+    private @NonNull CompletableFuture<Page> loadPage() {
+        if (searchFilter == null && sortFilter == null) {
+            final @NonNull List<String> ids = itemRegistry.getIds(typeFilter, rarityFilter);
+            final int count = pageCount(ids.size());
+            final int index = Math.max(0, Math.min(page, count - 1));
+            final int from = index * PAGE_SIZE;
+
+            return itemManager.getItemsAsync(ids.subList(from, Math.min(ids.size(), from + PAGE_SIZE)))
+                    .thenApply(items -> new Page(getItemStacks(items), index, count));
         }
-        if (sortFilter != null) {
-            items.sort(sortFilter.compareFunction.apply(items));
-        }
-        final @NonNull List<ItemStack> itemStacks = new ArrayList<>();
+        return itemManager.getItemsAsync(typeFilter, rarityFilter).thenApply(matching -> {
+            final @NonNull List<Item> items = new ArrayList<>(matching);
+
+            if (searchFilter != null) {
+                items.removeIf(item -> !StringUtils.containsIgnoreCase(item.getName(), searchFilter));
+            }
+            if (sortFilter != null) {
+                items.sort(sortFilter.compareFunction.apply(items));
+            }
+            final int count = pageCount(items.size());
+            final int index = Math.max(0, Math.min(page, count - 1));
+            final int from = index * PAGE_SIZE;
+
+            return new Page(getItemStacks(items.subList(from, Math.min(items.size(), from + PAGE_SIZE))), index, count);
+        });
+    }
+
+    /**
+     * Gets the amount of pages, which are needed to show some {@link Item}s.
+     *
+     * @param size the amount of Items
+     * @return the amount of pages, but at least one
+     */
+    private static int pageCount(final int size) {
+        return Math.max(1, (size + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    /**
+     * Gets the {@link Item#getBuildItemStack()}s of some {@link Item}s.
+     *
+     * @param items the Items
+     * @return a {@link List} of the build ItemStacks in the order of the Items
+     */
+    private static @NonNull List<ItemStack> getItemStacks(final @NonNull List<Item> items) {
+        final @NonNull List<ItemStack> itemStacks = new ArrayList<>(items.size());
 
         items.forEach(item -> itemStacks.add(item.getBuildItemStack()));
 
@@ -475,12 +515,31 @@ public final class ItemGui {
     }
 
     /**
-     * Opens and renders the {@link ItemGui} for a {@link Player}.
+     * Loads the shown page and then opens and renders the {@link ItemGui} for a {@link Player}.
+     * <p>
+     * With an {@link ItemCache}, the gui is shown once the Items of the page are read.
      *
      * @param player the player for which the gui should be shown
      */
-    public void open(Player player) {
-        gui.show(player);
+    public void open(final @NonNull Player player) {
+        loadPage().whenComplete((shown, e) -> {
+            if (e != null) {
+                final @NonNull Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+                player.sendMessage(Component.text(
+                        cause instanceof DatabaseUnavailableException
+                                ? cause.getMessage()
+                                : "The items could not be loaded, try again later.",
+                        Constants.Text.STYLE_ALERT
+                ));
+                return;
+            }
+            if (!player.isOnline()) {
+                return;
+            }
+            constructGui(shown);
+            gui.show(player);
+        });
     }
 
     /**
@@ -536,4 +595,18 @@ public final class ItemGui {
             return name;
         }
     }
+
+    /**
+     * One loaded page of the {@link ItemGui}.
+     *
+     * @param itemStacks the build {@link ItemStack}s of the {@link Item}s of the page
+     * @param index      the index of the page, starting at 0
+     * @param count      the amount of all pages
+     */
+    private record Page(
+            @NonNull List<ItemStack> itemStacks,
+            int index,
+            int count
+    ) {
+    }
 }
@@ -0,0 +1,212 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.itemsystem.Item;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A portable archive file of a whole {@link Item} catalog, to move it between databases.
+ * <p>
+ * The archive is streamed record by record in both directions, so only one batch
+ * of {@link ItemRecord}s is held in memory at a time, regardless of the catalog size.
+ * The item stack bytes are stored decoded, so the archive does not depend on
+ * the compression settings of either database.
+ * <p>
+ * Layout: magic, format version, enum fingerprint, the records in the layout of the
+ * {@link ItemSnapshot}, each prefixed by its length, an end marker of -1, the record count
+ * and a trailing CRC32 of everything before it.
+ */
+public final class ItemArchive {
+
+    /**
+     * The magic number at the start of every archive file.
+     */
+    private static final int MAGIC = 0x534B4941;
+
+    /**
+     * The version of the archive format.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The version of the record layout of the {@link ItemSnapshot}, in which the records are written.
+     */
+    private static final int RECORD_VERSION = 2;
+
+    /**
+     * The maximum length of a single record, which protects against corrupt length prefixes.
+     */
+    private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * The {@link Path} of the archive file.
+     */
+    private final @NonNull Path file;
+
+    /**
+     * Constructs an {@link ItemArchive}.
+     *
+     * @param file the {@link Path} of the archive file
+     */
+    public ItemArchive(final @NonNull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Writes all {@link ItemRecord}s of a source to the archive.
+     * <p>
+     * The archive is written to a temporary file first and then moved into place.
+     *
+     * @param source   the source, which passes every ItemRecord to the given {@link Consumer}
+     * @param progress the {@link IntConsumer}, which is called with the amount of written ItemRecords
+     * @return the amount of written ItemRecords
+     */
+    public int write(
+            final @NonNull Consumer<Consumer<ItemRecord>> source,
+            final @NonNull IntConsumer progress
+    ) throws IOException {
+        final @NonNull Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        final @NonNull CRC32 crc = new CRC32();
+        final int[] count = {0};
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+
+        try (final @NonNull DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)),
+                crc
+        ))) {
+            final @NonNull ByteArrayOutputStream frame = new ByteArrayOutputStream();
+            final @NonNull DataOutputStream frameOut = new DataOutputStream(frame);
+
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(ItemSnapshot.FINGERPRINT);
+
+            try {
+                source.accept(record -> {
+                    try {
+                        frame.reset();
+                        ItemSnapshot.writeRecord(frameOut, record);
+                        out.writeInt(frame.size());
+                        frame.writeTo(out);
+                    } catch (final @NonNull IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    progress.accept(++count[0]);
+                });
+            } catch (final @NonNull UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeInt(-1);
+            out.writeInt(count[0]);
+            out.writeLong(crc.getValue());
+        } catch (final @NonNull IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return count[0];
+    }
+
+    /**
+     * Reads all {@link ItemRecord}s of the archive in batches.
+     * <p>
+     * The whole file is validated in a first streamed pass,
+     * before the first batch is passed to the consumer.
+     *
+     * @param batchSize the maximum amount of ItemRecords per batch
+     * @param consumer  the {@link Consumer}, which is called with every batch of ItemRecords
+     * @return the amount of read ItemRecords
+     * @throws IOException if the archive is corrupt, incompatible or cannot be read
+     */
+    public int read(final int batchSize, final @NonNull Consumer<List<ItemRecord>> consumer) throws IOException {
+        final int count = stream(null);
+        final @NonNull List<ItemRecord> batch = new ArrayList<>(batchSize);
+
+        stream(record -> {
+            batch.add(record);
+
+            if (batch.size() >= batchSize) {
+                consumer.accept(new ArrayList<>(batch));
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+        return count;
+    }
+
+    /**
+     * Streams through the whole archive and validates its header, its record count and its checksum.
+     *
+     * @param consumer the {@link Consumer}, which is called with every {@link ItemRecord}, or null to only validate
+     * @return the amount of ItemRecords
+     * @throws IOException if the archive is corrupt, incompatible or cannot be read
+     */
+    private int stream(final @Nullable Consumer<ItemRecord> consumer) throws IOException {
+        final @NonNull CRC32 crc = new CRC32();
+
+        try (final @NonNull DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)),
+                crc
+        ))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != ItemSnapshot.FINGERPRINT) {
+                throw new IOException("The item archive was written by an incompatible version.");
+            }
+            int count = 0;
+
+            while (true) {
+                final int length = in.readInt();
+
+                if (length == -1) {
+                    break;
+                }
+                if (length < 0 || length > MAX_RECORD_LENGTH) {
+                    throw new IOException("Invalid item archive record length " + length + ".");
+                }
+                final byte @NonNull [] frame = new byte[length];
+
+                in.readFully(frame);
+                count++;
+
+                if (consumer != null) {
+                    consumer.accept(ItemSnapshot.readRecord(ByteBuffer.wrap(frame), RECORD_VERSION));
+                }
+            }
+            if (in.readInt() != count) {
+                throw new IOException("The record count of the item archive does not match.");
+            }
+            final long checksum = crc.getValue();
+
+            if (in.readLong() != checksum) {
+                throw new IOException("The checksum of the item archive does not match.");
+            }
+            return count;
+        } catch (final @NonNull EOFException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("The item archive is truncated.", e);
+        }
+    }
+}
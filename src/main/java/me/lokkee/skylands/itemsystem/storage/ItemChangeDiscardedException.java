@@ -0,0 +1,22 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Thrown to callers waiting for the write of a change of an {@link me.lokkee.skylands.itemsystem.Item},
+ * if the change is not going to be written by a save round anymore.
+ * <p>
+ * This happens, if the change conflicts with a concurrent change of another server,
+ * if it is overwritten by an import, or if it could not be written before the shutdown.
+ */
+public final class ItemChangeDiscardedException extends IllegalStateException {
+
+    /**
+     * Constructs an {@link ItemChangeDiscardedException}.
+     *
+     * @param message the message, which explains why the change is not written
+     */
+    public ItemChangeDiscardedException(final @NonNull String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,32 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.itemsystem.Item;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+
+/**
+ * The {@link Item}s, which other servers changed in the {@link ItemStore}, read from its change feed.
+ * <p>
+ * The changed Items are resolved to their current stored state, so the
+ * order of the changes in between does not matter.
+ *
+ * @param sequence  the sequence of the last read change, from which the next read continues
+ * @param records   the current {@link ItemRecord}s of the changed Items
+ * @param deletions the ids of the changed Items, which are no longer stored
+ */
+public record ItemChanges(
+        long sequence,
+        @NonNull List<ItemRecord> records,
+        @NonNull List<String> deletions
+) {
+
+    /**
+     * Checks whether no Item was changed.
+     *
+     * @return whether there are no records and no deletions
+     */
+    public boolean isEmpty() {
+        return records.isEmpty() && deletions.isEmpty();
+    }
+}
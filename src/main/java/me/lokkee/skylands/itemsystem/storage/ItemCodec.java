@@ -0,0 +1,430 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.core.utils.ItemSerializer;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * The codec of the stored {@link ItemStack} payloads.
+ * <p>
+ * The serialized form of an ItemStack is GZIP compressed NBT. The codec
+ * unwraps the NBT and deflates it again, optionally with a preset dictionary
+ * which was trained on the catalog, as the NBT of items repeats a lot of
+ * structure. Every encoded payload starts with a format header byte:
+ * <ul>
+ *     <li>{@link #FORMAT_DEFLATE} - followed by the deflated NBT</li>
+ *     <li>{@link #FORMAT_DICTIONARY} - followed by the 4 byte dictionary id and the deflated NBT</li>
+ * </ul>
+ * Payloads without a header, either raw GZIP or legacy {@link Base64} text,
+ * are still being decoded, so old and new rows can coexist.
+ */
+public final class ItemCodec {
+
+    /**
+     * The format header of payloads, which are deflated without a dictionary.
+     */
+    public static final byte FORMAT_DEFLATE = 0x01;
+
+    /**
+     * The format header of payloads, which are deflated with a preset dictionary.
+     */
+    public static final byte FORMAT_DICTIONARY = 0x02;
+
+    /**
+     * The length of the substrings, which are counted when training a dictionary.
+     */
+    private static final int TRAINING_GRAM_LENGTH = 12;
+
+    /**
+     * All known dictionaries.
+     * <p>
+     * Key - The id of the dictionary, its Adler-32 checksum
+     * <p>
+     * Value - The bytes of the dictionary
+     */
+    private final @NonNull Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link Mode} of newly encoded payloads.
+     */
+    private final @NonNull Mode mode;
+
+    /**
+     * The deflate compression level.
+     */
+    private final int level;
+
+    /**
+     * The id of the dictionary which is used for newly encoded payloads.
+     */
+    private volatile @Nullable Integer activeDictionary;
+
+    /**
+     * The amount of stored bytes, which were decoded.
+     */
+    private final @NonNull LongAdder decodedStoredBytes = new LongAdder();
+
+    /**
+     * The amount of uncompressed NBT bytes, which were decoded.
+     */
+    private final @NonNull LongAdder decodedRawBytes = new LongAdder();
+
+    /**
+     * The amount of decoded payloads.
+     */
+    private final @NonNull LongAdder decodeCount = new LongAdder();
+
+    /**
+     * The time spent decoding payloads in nanoseconds.
+     */
+    private final @NonNull LongAdder decodeNanos = new LongAdder();
+
+    /**
+     * Constructs an {@link ItemCodec}.
+     *
+     * @param mode  the {@link Mode} of newly encoded payloads
+     * @param level the deflate compression level
+     */
+    public ItemCodec(final @NonNull Mode mode, final int level) {
+        this.mode = mode;
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+    }
+
+    /**
+     * Gets the {@link Mode} of newly encoded payloads.
+     *
+     * @return the Mode of the codec
+     */
+    public @NonNull Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Adds a known dictionary, which can then be used for decoding.
+     *
+     * @param dictionary the bytes of the dictionary
+     * @return the id of the dictionary
+     */
+    public int addDictionary(final byte @NonNull [] dictionary) {
+        final int id = dictionaryId(dictionary);
+
+        dictionaries.put(id, dictionary);
+        return id;
+    }
+
+    /**
+     * Checks whether a dictionary is known, so it can be used for decoding.
+     *
+     * @param id the id of the dictionary
+     * @return whether the dictionary is known
+     */
+    public boolean hasDictionary(final int id) {
+        return dictionaries.containsKey(id);
+    }
+
+    /**
+     * Sets the dictionary, which is used for newly encoded payloads.
+     *
+     * @param id the id of a known dictionary
+     */
+    public void setActiveDictionary(final int id) {
+        if (!dictionaries.containsKey(id)) {
+            throw new IllegalArgumentException("Unknown dictionary " + id);
+        }
+        activeDictionary = id;
+    }
+
+    /**
+     * Checks whether a dictionary is used for newly encoded payloads.
+     *
+     * @return whether a dictionary is active
+     */
+    public boolean hasActiveDictionary() {
+        return activeDictionary != null;
+    }
+
+    /**
+     * Encodes the serialized bytes of an {@link ItemStack} to their stored form.
+     *
+     * @param data the serialized bytes of the ItemStack
+     * @return the stored form of the bytes
+     */
+    public byte @NonNull [] encode(final byte @NonNull [] data) {
+        if (mode == Mode.NONE) {
+            return data;
+        }
+        final byte @NonNull [] nbt = gunzip(data);
+        final @Nullable Integer dictionaryId = mode == Mode.DICTIONARY ? activeDictionary : null;
+
+        final @NonNull Deflater deflater = new Deflater(level, true);
+
+        try {
+            final @NonNull ByteArrayOutputStream out = new ByteArrayOutputStream(nbt.length / 2 + 16);
+
+            if (dictionaryId == null) {
+                out.write(FORMAT_DEFLATE);
+            } else {
+                out.write(FORMAT_DICTIONARY);
+                out.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(dictionaryId).array());
+                deflater.setDictionary(dictionaries.get(dictionaryId));
+            }
+            deflater.setInput(nbt);
+            deflater.finish();
+
+            final byte @NonNull [] buffer = new byte[4096];
+
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decodes the stored form of an {@link ItemStack} back to its serialized bytes,
+     * which can be passed to {@link ItemSerializer#ItemStackFromBytes(byte[])}.
+     *
+     * @param data the stored form of the bytes
+     * @return the serialized bytes of the ItemStack
+     * @throws UnknownDictionaryException if the bytes were encoded with an unknown dictionary
+     */
+    public byte @NonNull [] decode(final byte @NonNull [] data) {
+        if (data.length == 0 || (data[0] != FORMAT_DEFLATE && data[0] != FORMAT_DICTIONARY)) {
+            return ItemSerializer.isBase64(data) ? Base64.getDecoder().decode(data) : data;
+        }
+        final long start = System.nanoTime();
+
+        int offset = 1;
+        byte @Nullable [] dictionary = null;
+
+        if (data[0] == FORMAT_DICTIONARY) {
+            final int dictionaryId = ByteBuffer.wrap(data, 1, Integer.BYTES).getInt();
+            dictionary = dictionaries.get(dictionaryId);
+            offset += Integer.BYTES;
+
+            if (dictionary == null) {
+                throw new UnknownDictionaryException(dictionaryId);
+            }
+        }
+        final @NonNull Inflater inflater = new Inflater(true);
+
+        try {
+            if (dictionary != null) {
+                inflater.setDictionary(dictionary);
+            }
+            inflater.setInput(data, offset, data.length - offset);
+
+            final @NonNull ByteArrayOutputStream nbt = new ByteArrayOutputStream(data.length * 4);
+            final byte @NonNull [] buffer = new byte[4096];
+
+            while (!inflater.finished()) {
+                final int length = inflater.inflate(buffer);
+
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated item payload");
+                }
+                nbt.write(buffer, 0, length);
+            }
+            final byte @NonNull [] serialized = gzipStored(nbt.toByteArray());
+
+            decodedStoredBytes.add(data.length);
+            decodedRawBytes.add(nbt.size());
+            decodeCount.increment();
+            decodeNanos.add(System.nanoTime() - start);
+
+            return serialized;
+        } catch (final @NonNull DataFormatException e) {
+            throw new IllegalStateException("Corrupt item payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Gets a summary of the compression ratio and the decode cost
+     * of all payloads, which were decoded so far.
+     *
+     * @return the summary String
+     */
+    public @NonNull String getStatistics() {
+        final long count = decodeCount.sum();
+
+        if (count == 0) {
+            return "no compressed item payloads decoded";
+        }
+        final long stored = decodedStoredBytes.sum();
+        final long raw = decodedRawBytes.sum();
+
+        return String.format(
+                Locale.ROOT,
+                "%d compressed item payloads, %d KiB stored for %d KiB of NBT (ratio %.2f), %.1f µs per decode",
+                count,
+                stored / 1024,
+                raw / 1024,
+                stored == 0 ? 0 : (double) raw / stored,
+                decodeNanos.sum() / 1000D / count
+        );
+    }
+
+    /**
+     * Trains a preset dictionary on the serialized bytes of sample {@link ItemStack}s.
+     * <p>
+     * Substrings which occur in many samples are collected until the size is
+     * reached. A substring is skipped, if it starts or ends with a half of
+     * an already collected one, as it is mostly a shifted copy of it.
+     * The most common ones are placed at the end of the dictionary,
+     * where deflate can reference them with the shortest distances.
+     *
+     * @param samples the serialized bytes of the sample ItemStacks
+     * @param size    the maximum size of the dictionary in bytes
+     * @return the bytes of the dictionary
+     */
+    public static byte @NonNull [] train(final @NonNull List<byte[]> samples, final int size) {
+        final @NonNull Map<String, Integer> counts = new HashMap<>();
+
+        for (final byte @NonNull [] sample : samples) {
+            final @NonNull String nbt = new String(gunzip(sample), StandardCharsets.ISO_8859_1);
+            final @NonNull Set<String> seen = new HashSet<>();
+
+            for (int i = 0; i + TRAINING_GRAM_LENGTH <= nbt.length(); i++) {
+                final @NonNull String gram = nbt.substring(i, i + TRAINING_GRAM_LENGTH);
+
+                if (seen.add(gram)) {
+                    counts.merge(gram, 1, Integer::sum);
+                }
+            }
+        }
+        final @NonNull List<Map.Entry<String, Integer>> common = new ArrayList<>();
+
+        for (final Map.@NonNull Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 1) {
+                common.add(entry);
+            }
+        }
+        common.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()));
+
+        final int half = TRAINING_GRAM_LENGTH / 2;
+        final @NonNull List<String> segments = new ArrayList<>();
+        final @NonNull Set<String> covered = new HashSet<>();
+
+        for (final Map.@NonNull Entry<String, Integer> entry : common) {
+            if ((segments.size() + 1) * TRAINING_GRAM_LENGTH > size) {
+                break;
+            }
+            final @NonNull String gram = entry.getKey();
+
+            if (covered.contains(gram.substring(0, half)) || covered.contains(gram.substring(TRAINING_GRAM_LENGTH - half))) {
+                continue;
+            }
+            segments.add(gram);
+
+            for (int i = 0; i + half <= TRAINING_GRAM_LENGTH; i++) {
+                covered.add(gram.substring(i, i + half));
+            }
+        }
+        final @NonNull StringBuilder dictionary = new StringBuilder(segments.size() * TRAINING_GRAM_LENGTH);
+
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            dictionary.append(segments.get(i));
+        }
+        return dictionary.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Computes the id of a dictionary, its Adler-32 checksum.
+     *
+     * @param dictionary the bytes of the dictionary
+     * @return the id of the dictionary
+     */
+    public static int dictionaryId(final byte @NonNull [] dictionary) {
+        final @NonNull Adler32 adler = new Adler32();
+        adler.update(dictionary);
+
+        return (int) adler.getValue();
+    }
+
+    /**
+     * Unwraps the NBT of the GZIP compressed serialized bytes.
+     *
+     * @param data the GZIP compressed bytes
+     * @return the uncompressed bytes
+     */
+    private static byte @NonNull [] gunzip(final byte @NonNull [] data) {
+        try (final @NonNull GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (final @NonNull IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Wraps NBT in an uncompressed GZIP container, as it is expected by
+     * {@link ItemStack#deserializeBytes(byte[])}, without compressing it again.
+     *
+     * @param nbt the uncompressed bytes
+     * @return the GZIP wrapped bytes
+     */
+    private static byte @NonNull [] gzipStored(final byte @NonNull [] nbt) {
+        final @NonNull ByteArrayOutputStream out = new ByteArrayOutputStream(nbt.length + 64);
+
+        try (final @NonNull GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.NO_COMPRESSION);
+            }
+        }) {
+            gzip.write(nbt);
+        } catch (final @NonNull IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Holds all the modes of newly encoded payloads.
+     */
+    public enum Mode {
+
+        /**
+         * Payloads are stored as they are serialized.
+         */
+        NONE,
+
+        /**
+         * Payloads are deflated without a dictionary.
+         */
+        DEFLATE,
+
+        /**
+         * Payloads are deflated with the active dictionary,
+         * or without one as long as there is none.
+         */
+        DICTIONARY
+    }
+}
@@ -0,0 +1,526 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.core.Rarity;
+import me.lokkee.skylands.itemsystem.Item;
+import me.lokkee.skylands.itemsystem.ItemStat;
+import me.lokkee.skylands.itemsystem.ItemType;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead journal of all {@link Item} mutations.
+ * <p>
+ * Every mutation is appended as a compact entry to an in-memory buffer on the main thread.
+ * The sync thread of the journal writes the buffer to the journal file and forces it
+ * to disk in the configured sync interval, so many mutations share a single fsync.
+ * <p>
+ * Once a flush of the {@link ItemWriteBehind} is written, the journal is checkpointed
+ * and all entries it covers are dropped. On the next start, the remaining entries are
+ * replayed. Every entry sets an absolute value, so entries which were already written
+ * before a crash can safely be replayed again.
+ * <p>
+ * Layout of an entry: the length of its body, the body and a CRC32 of the body.
+ * The body consists of the sequence number, the {@link Operation} and its payload.
+ */
+public final class ItemJournal {
+
+    /**
+     * The {@link Path} of the journal file.
+     */
+    private final @NonNull Path file;
+
+    /**
+     * The {@link Logger}, which reports failed syncs.
+     */
+    private final @NonNull Logger logger;
+
+    /**
+     * The sync thread, which does all file work after the journal was opened.
+     */
+    private final @NonNull ScheduledExecutorService syncThread =
+            Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "Skylands Journal"));
+
+    /**
+     * The entries which are appended but not yet written to the file.
+     * <p>
+     * Guarded by itself.
+     */
+    private final @NonNull ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    /**
+     * The {@link FileChannel} of the journal file.
+     * <p>
+     * Only used by the sync thread after the journal was opened.
+     */
+    private @Nullable FileChannel channel;
+
+    /**
+     * The sequence number of the last appended entry.
+     * <p>
+     * Guarded by the pending buffer.
+     */
+    private long sequence;
+
+    /**
+     * The sequence number of the last entry, which was written to the file.
+     * <p>
+     * Only used by the sync thread after the journal was opened.
+     */
+    private long writtenSequence;
+
+    /**
+     * Constructs an {@link ItemJournal}.
+     *
+     * @param file   the {@link Path} of the journal file
+     * @param logger the {@link Logger}, which reports failed syncs
+     */
+    public ItemJournal(final @NonNull Path file, final @NonNull Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    /**
+     * Opens the journal file and replays all entries, which were not checkpointed yet.
+     * <p>
+     * A torn entry at the end of the file, which was only partially written
+     * before a crash, is cut off together with everything after it.
+     * Afterwards, the sync thread starts writing new entries in the sync interval.
+     *
+     * @param replay       the {@link Replay}, which applies the entries
+     * @param syncInterval the interval in milliseconds, in which new entries are forced to disk
+     * @return the amount of replayed entries
+     */
+    public int open(final @NonNull Replay replay, final long syncInterval) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        final @NonNull ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Reads the whole file
+        }
+        buffer.flip();
+
+        int count = 0;
+        int valid = 0;
+
+        while (buffer.remaining() >= 4) {
+            final int length = buffer.getInt();
+
+            if (length < 9 || length > buffer.remaining() - 4) {
+                break;
+            }
+            final byte @NonNull [] body = new byte[length];
+
+            buffer.get(body);
+
+            final @NonNull CRC32 crc = new CRC32();
+
+            crc.update(body);
+
+            if ((int) crc.getValue() != buffer.getInt()) {
+                break;
+            }
+            sequence = Math.max(sequence, apply(body, replay));
+            valid = buffer.position();
+            count++;
+        }
+        channel.truncate(valid);
+        channel.position(valid);
+        writtenSequence = sequence;
+
+        syncThread.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (final @NonNull IOException e) {
+                logger.log(Level.SEVERE, "Failed to sync the item journal.", e);
+            }
+        }, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+
+        return count;
+    }
+
+    /**
+     * Appends the creation of an {@link Item}.
+     *
+     * @param id        the id of the Item
+     * @param type      the {@link ItemType} of the Item
+     * @param rarity    the {@link Rarity} of the Item
+     * @param itemStack the serialized bytes of the item stack of the Item
+     */
+    public void appendCreate(
+            final @NonNull String id,
+            final @NonNull ItemType type,
+            final @NonNull Rarity rarity,
+            final byte @NonNull [] itemStack
+    ) {
+        append(Operation.CREATE, id, out -> {
+            out.writeUTF(type.name());
+            out.writeUTF(rarity.name());
+            out.writeInt(itemStack.length);
+            out.write(itemStack);
+        });
+    }
+
+    /**
+     * Appends the deletion of an {@link Item}.
+     *
+     * @param id the id of the Item
+     */
+    public void appendDelete(final @NonNull String id) {
+        append(Operation.DELETE, id, out -> {
+        });
+    }
+
+    /**
+     * Appends a change of the {@link Rarity} of an {@link Item}.
+     *
+     * @param id     the id of the Item
+     * @param rarity the new Rarity
+     */
+    public void appendRarity(final @NonNull String id, final @NonNull Rarity rarity) {
+        append(Operation.RARITY, id, out -> out.writeUTF(rarity.name()));
+    }
+
+    /**
+     * Appends a change of the item stack of an {@link Item}.
+     *
+     * @param id        the id of the Item
+     * @param itemStack the serialized bytes of the new item stack
+     */
+    public void appendItemStack(final @NonNull String id, final byte @NonNull [] itemStack) {
+        append(Operation.ITEM_STACK, id, out -> {
+            out.writeInt(itemStack.length);
+            out.write(itemStack);
+        });
+    }
+
+    /**
+     * Appends a change of an {@link ItemStat} of an {@link Item}.
+     *
+     * @param id    the id of the Item
+     * @param stat  the changed ItemStat
+     * @param value the new value, zero if the ItemStat was removed
+     */
+    public void appendStat(final @NonNull String id, final @NonNull ItemStat stat, final double value) {
+        append(Operation.STAT, id, out -> {
+            out.writeUTF(stat.name());
+            out.writeDouble(value);
+        });
+    }
+
+    /**
+     * Gets the sequence number of the last appended entry.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        synchronized (pending) {
+            return sequence;
+        }
+    }
+
+    /**
+     * Drops all entries up to a sequence number on the sync thread,
+     * since they are written to the {@link ItemStore}.
+     *
+     * @param checkpoint the sequence number of the last written entry
+     */
+    public void checkpointAsync(final long checkpoint) {
+        syncThread.execute(() -> {
+            try {
+                checkpoint(checkpoint);
+            } catch (final @NonNull IOException e) {
+                logger.log(Level.SEVERE, "Failed to checkpoint the item journal.", e);
+            }
+        });
+    }
+
+    /**
+     * Writes all appended entries to the file and forces them to disk.
+     * <p>
+     * Must only be called by the sync thread, or after it was stopped.
+     */
+    private void sync() throws IOException {
+        final byte @NonNull [] bytes;
+        final long lastSequence;
+
+        synchronized (pending) {
+            if (pending.size() == 0) {
+                return;
+            }
+            bytes = pending.toByteArray();
+            lastSequence = sequence;
+            pending.reset();
+        }
+        final @NonNull FileChannel channel = channel();
+        final @NonNull ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        writtenSequence = lastSequence;
+    }
+
+    /**
+     * Drops all entries up to a sequence number, since they are written to the {@link ItemStore}.
+     * <p>
+     * If no newer entry was appended, the file is simply truncated. Otherwise, the newer
+     * entries are copied into a new file, which then replaces the journal file.
+     * <p>
+     * Must only be called by the sync thread.
+     *
+     * @param checkpoint the sequence number of the last written entry
+     */
+    private void checkpoint(final long checkpoint) throws IOException {
+        sync();
+
+        if (checkpoint >= writtenSequence) {
+            channel().truncate(0);
+            return;
+        }
+        final @NonNull Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        final @NonNull FileChannel oldChannel = channel();
+        final @NonNull ByteBuffer buffer = ByteBuffer.allocate((int) oldChannel.size());
+
+        oldChannel.position(0);
+
+        while (buffer.hasRemaining() && oldChannel.read(buffer) >= 0) {
+            // Reads the whole file
+        }
+        buffer.flip();
+
+        try (final @NonNull FileChannel newChannel = FileChannel.open(
+                temp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )) {
+            while (buffer.remaining() >= 4) {
+                final int start = buffer.position();
+                final int length = buffer.getInt();
+
+                if (buffer.getLong(buffer.position()) > checkpoint) {
+                    newChannel.write(buffer.duplicate().position(start).limit(start + length + 8));
+                }
+                buffer.position(start + length + 8);
+            }
+            newChannel.force(false);
+        }
+        oldChannel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    /**
+     * Stops the sync thread after all queued checkpoints,
+     * writes all appended entries and closes the journal file.
+     */
+    public void close() throws IOException {
+        syncThread.shutdown();
+
+        try {
+            if (!syncThread.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("The item journal did not stop in time.");
+            }
+        } catch (final @NonNull InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (channel == null) {
+            return;
+        }
+        sync();
+        channel.close();
+        channel = null;
+    }
+
+    /**
+     * Appends an entry to the pending buffer.
+     *
+     * @param operation the {@link Operation} of the entry
+     * @param id        the id of the Item
+     * @param payload   the {@link Payload}, which writes the rest of the body
+     */
+    private void append(final @NonNull Operation operation, final @NonNull String id, final @NonNull Payload payload) {
+        final @NonNull ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        final @NonNull DataOutputStream out = new DataOutputStream(body);
+
+        synchronized (pending) {
+            try {
+                out.writeLong(++sequence);
+                out.writeByte(operation.ordinal());
+                out.writeUTF(id);
+                payload.write(out);
+
+                final @NonNull CRC32 crc = new CRC32();
+                final byte @NonNull [] bytes = body.toByteArray();
+
+                crc.update(bytes);
+
+                final @NonNull DataOutputStream entry = new DataOutputStream(pending);
+
+                entry.writeInt(bytes.length);
+                entry.write(bytes);
+                entry.writeInt((int) crc.getValue());
+            } catch (final @NonNull IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Applies the body of an entry.
+     *
+     * @param body   the body of the entry
+     * @param replay the {@link Replay}, which applies the entry
+     * @return the sequence number of the entry
+     */
+    private static long apply(final byte @NonNull [] body, final @NonNull Replay replay) throws IOException {
+        final @NonNull DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        final long sequence = in.readLong();
+
+        try {
+            final @NonNull Operation operation = Operation.values()[in.readUnsignedByte()];
+            final @NonNull String id = in.readUTF();
+
+            switch (operation) {
+                case CREATE -> replay.create(
+                        id,
+                        ItemType.valueOf(in.readUTF()),
+                        Rarity.valueOf(in.readUTF()),
+                        in.readNBytes(in.readInt())
+                );
+                case DELETE -> replay.delete(id);
+                case RARITY -> replay.setRarity(id, Rarity.valueOf(in.readUTF()));
+                case ITEM_STACK -> replay.setItemStack(id, in.readNBytes(in.readInt()));
+                case STAT -> replay.setStat(id, ItemStat.valueOf(in.readUTF()), in.readDouble());
+            }
+        } catch (final @NonNull IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid item journal entry " + sequence + ".", e);
+        }
+        return sequence;
+    }
+
+    /**
+     * Gets the open {@link FileChannel} of the journal file.
+     *
+     * @return the FileChannel
+     */
+    private @NonNull FileChannel channel() throws IOException {
+        if (channel == null) {
+            throw new IOException("The item journal is not open.");
+        }
+        return channel;
+    }
+
+    /**
+     * Holds all the operations, which are recorded in the journal.
+     * <p>
+     * The ordinals are stored, so new operations must only ever be appended.
+     */
+    private enum Operation {
+
+        /**
+         * The creation of an {@link Item}.
+         */
+        CREATE,
+        /**
+         * The deletion of an {@link Item}.
+         */
+        DELETE,
+        /**
+         * A change of the {@link Rarity} of an {@link Item}.
+         */
+        RARITY,
+        /**
+         * A change of the item stack of an {@link Item}.
+         */
+        ITEM_STACK,
+        /**
+         * A change of an {@link ItemStat} of an {@link Item}.
+         */
+        STAT
+    }
+
+    /**
+     * Writes the payload of an entry.
+     */
+    @FunctionalInterface
+    private interface Payload {
+
+        /**
+         * Writes the payload.
+         *
+         * @param out the {@link DataOutputStream} of the body
+         */
+        void write(@NonNull DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Applies replayed journal entries.
+     */
+    public interface Replay {
+
+        /**
+         * Applies the creation of an {@link Item}.
+         *
+         * @param id        the id of the Item
+         * @param type      the {@link ItemType} of the Item
+         * @param rarity    the {@link Rarity} of the Item
+         * @param itemStack the serialized bytes of the item stack of the Item
+         */
+        void create(@NonNull String id, @NonNull ItemType type, @NonNull Rarity rarity, byte @NonNull [] itemStack);
+
+        /**
+         * Applies the deletion of an {@link Item}.
+         *
+         * @param id the id of the Item
+         */
+        void delete(@NonNull String id);
+
+        /**
+         * Applies a change of the {@link Rarity} of an {@link Item}.
+         *
+         * @param id     the id of the Item
+         * @param rarity the new Rarity
+         */
+        void setRarity(@NonNull String id, @NonNull Rarity rarity);
+
+        /**
+         * Applies a change of the item stack of an {@link Item}.
+         *
+         * @param id        the id of the Item
+         * @param itemStack the serialized bytes of the new item stack
+         */
+        void setItemStack(@NonNull String id, byte @NonNull [] itemStack);
+
+        /**
+         * Applies a change of an {@link ItemStat} of an {@link Item}.
+         *
+         * @param id    the id of the Item
+         * @param stat  the changed ItemStat
+         * @param value the new value, zero if the ItemStat was removed
+         */
+        void setStat(@NonNull String id, @NonNull ItemStat stat, double value);
+    }
+}
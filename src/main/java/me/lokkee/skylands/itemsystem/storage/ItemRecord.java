@@ -0,0 +1,57 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.core.Rarity;
+import me.lokkee.skylands.itemsystem.Item;
+import me.lokkee.skylands.itemsystem.ItemStat;
+import me.lokkee.skylands.itemsystem.ItemType;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the persistent state of an {@link Item}.
+ * <p>
+ * Records are taken on the main thread and can then safely
+ * be handed to background threads for writing.
+ *
+ * @param id        the unique String id of the Item
+ * @param type      the {@link ItemType} of the Item
+ * @param rarity    the {@link Rarity} of the Item
+ * @param itemStack the serialized bytes of the {@link ItemStack} of the Item
+ * @param stats     the {@link ItemStat}s of the Item and their values
+ * @param version   the version of the stored row, which the state is based on
+ */
+public record ItemRecord(
+        @NonNull String id,
+        @NonNull ItemType type,
+        @NonNull Rarity rarity,
+        byte @NonNull [] itemStack,
+        @NonNull Map<ItemStat, Double> stats,
+        long version
+) {
+
+    /**
+     * Takes an {@link ItemRecord} snapshot of an {@link Item}.
+     *
+     * @param item the Item of which the snapshot is to be taken
+     * @return the ItemRecord of the Item
+     */
+    public static @NonNull ItemRecord of(final @NonNull Item item) {
+        final @NonNull Map<ItemStat, Double> stats = new EnumMap<>(ItemStat.class);
+
+        for (final @NonNull ItemStat stat : item.getStats()) {
+            stats.put(stat, item.getStat(stat));
+        }
+        return new ItemRecord(
+                item.getId(),
+                item.getType(),
+                item.getRarity(),
+                item.getItemStackBytes(),
+                Collections.unmodifiableMap(stats),
+                item.getVersion()
+        );
+    }
+}
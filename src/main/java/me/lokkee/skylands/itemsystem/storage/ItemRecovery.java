@@ -0,0 +1,156 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.itemsystem.Item;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A local recovery file of the {@link Item} changes, which could not be written on shutdown in time.
+ * <p>
+ * The file holds complete {@link ItemRecord}s and the ids of deleted Items,
+ * so applying it again on the next start restores the state at shutdown.
+ * <p>
+ * Layout: magic, format version, enum fingerprint, the records in the layout of the
+ * {@link ItemSnapshot}, the deleted ids and a trailing CRC32 of everything before it.
+ */
+public final class ItemRecovery {
+
+    /**
+     * The magic number at the start of every recovery file.
+     */
+    private static final int MAGIC = 0x534B4952;
+
+    /**
+     * The version of the recovery format.
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * The {@link Path} of the recovery file.
+     */
+    private final @NonNull Path file;
+
+    /**
+     * Constructs an {@link ItemRecovery}.
+     *
+     * @param file the {@link Path} of the recovery file
+     */
+    public ItemRecovery(final @NonNull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Checks whether there is a recovery file.
+     *
+     * @return whether the recovery file exists
+     */
+    public boolean exists() {
+        return Files.isRegularFile(file);
+    }
+
+    /**
+     * Reads the recovery file.
+     * <p>
+     * The whole file is validated before anything is passed to the consumers.
+     *
+     * @param records   the {@link Consumer}, which is called with every {@link ItemRecord}
+     * @param deletions the Consumer, which is called with the id of every deleted Item
+     * @throws IOException if the recovery file is corrupt or cannot be read
+     */
+    public void read(final @NonNull Consumer<ItemRecord> records, final @NonNull Consumer<String> deletions) throws IOException {
+        final @NonNull ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        final int size = buffer.capacity();
+
+        try {
+            final @NonNull CRC32 crc = new CRC32();
+
+            crc.update(buffer.slice(0, size - 8));
+
+            if (crc.getValue() != buffer.getLong(size - 8)) {
+                throw new IOException("The checksum of the recovery file does not match.");
+            }
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("The recovery file was written by an incompatible version.");
+            }
+            final int version = buffer.getInt();
+
+            if (version < 1 || version > FORMAT_VERSION || buffer.getLong() != ItemSnapshot.FINGERPRINT) {
+                throw new IOException("The recovery file was written by an incompatible version.");
+            }
+            buffer.limit(size - 8);
+
+            final int recordCount = buffer.getInt();
+
+            for (int i = 0; i < recordCount; i++) {
+                records.accept(ItemSnapshot.readRecord(buffer, version));
+            }
+            final int deletionCount = buffer.getInt();
+
+            for (int i = 0; i < deletionCount; i++) {
+                final byte @NonNull [] id = new byte[buffer.getShort() & 0xFFFF];
+
+                buffer.get(id);
+                deletions.accept(new String(id, StandardCharsets.UTF_8));
+            }
+        } catch (final @NonNull BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("The recovery file is truncated.", e);
+        }
+    }
+
+    /**
+     * Writes {@link ItemRecord}s and deletions to the recovery file.
+     * <p>
+     * The file is written to a temporary file first and then moved into place.
+     *
+     * @param records   the ItemRecords which could not be written
+     * @param deletions the ids of the Items, whose deletion could not be written
+     */
+    public void write(final @NonNull List<ItemRecord> records, final @NonNull List<String> deletions) throws IOException {
+        final @NonNull Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        final @NonNull CRC32 crc = new CRC32();
+
+        try (final @NonNull DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)),
+                crc
+        ))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(ItemSnapshot.FINGERPRINT);
+            out.writeInt(records.size());
+
+            for (final @NonNull ItemRecord record : records) {
+                ItemSnapshot.writeRecord(out, record);
+            }
+            out.writeInt(deletions.size());
+
+            for (final @NonNull String id : deletions) {
+                final byte @NonNull [] bytes = id.getBytes(StandardCharsets.UTF_8);
+
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            out.writeLong(crc.getValue());
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the recovery file, once its changes are written.
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
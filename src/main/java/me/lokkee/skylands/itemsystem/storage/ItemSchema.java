@@ -0,0 +1,229 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.core.database.Migration;
+import me.lokkee.skylands.itemsystem.Item;
+import me.lokkee.skylands.itemsystem.ItemStat;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The database schema of all {@link Item}s and its {@link Migration}s.
+ */
+public final class ItemSchema {
+
+    /**
+     * All {@link Migration}s of the item schema, in order.
+     * <p>
+     * Existing migrations must never be changed, new ones are appended with the next version.
+     */
+    public static final @NonNull List<Migration> MIGRATIONS = List.of(
+            Migration.of(1, "Create the item tables",
+                    "CREATE TABLE IF NOT EXISTS item_data ("
+                            + "id VARCHAR(64) NOT NULL, "
+                            + "type VARCHAR(32) NOT NULL, "
+                            + "rarity VARCHAR(32) NOT NULL, "
+                            + "itemstack MEDIUMBLOB NOT NULL, "
+                            + "PRIMARY KEY (id)"
+                            + ") ENGINE = InnoDB",
+                    "CREATE TABLE IF NOT EXISTS itemstat_data ("
+                            + "id VARCHAR(64) NOT NULL, "
+                            + "stat VARCHAR(32) NOT NULL, "
+                            + "value DOUBLE NOT NULL, "
+                            + "PRIMARY KEY (id, stat)"
+                            + ") ENGINE = InnoDB"
+            ),
+            new Migration(2, "Add the primary keys of manually created item tables", ItemSchema::addPrimaryKeys),
+            new Migration(3, "Store item stacks as binary", ItemSchema::migrateItemStackColumn),
+            Migration.of(4, "Cascade the deletion of items to their stats",
+                    "DELETE FROM itemstat_data WHERE NOT EXISTS "
+                            + "(SELECT 1 FROM item_data i WHERE i.id = itemstat_data.id)",
+                    "ALTER TABLE itemstat_data ADD CONSTRAINT fk_itemstat_item "
+                            + "FOREIGN KEY (id) REFERENCES item_data (id) ON DELETE CASCADE"
+            ),
+            Migration.of(5, "Create the item compression dictionary table",
+                    "CREATE TABLE IF NOT EXISTS item_dictionary ("
+                            + "id INT NOT NULL, "
+                            + "data BLOB NOT NULL, "
+                            + "created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), "
+                            + "PRIMARY KEY (id)"
+                            + ") ENGINE = InnoDB"
+            ),
+            Migration.of(6, "Create the item revision counter",
+                    "CREATE TABLE IF NOT EXISTS item_revision ("
+                            + "id INT NOT NULL, "
+                            + "revision BIGINT NOT NULL, "
+                            + "PRIMARY KEY (id)"
+                            + ") ENGINE = InnoDB",
+                    "INSERT IGNORE INTO item_revision (id, revision) VALUES(1, 0)"
+            ),
+            new Migration(7, "Pack the stats of every item into one column", ItemSchema::packStats),
+            Migration.of(8, "Create the item change feed",
+                    "CREATE TABLE IF NOT EXISTS item_changes ("
+                            + "seq BIGINT NOT NULL AUTO_INCREMENT, "
+                            + "id VARCHAR(64) NOT NULL, "
+                            + "operation VARCHAR(16) NOT NULL, "
+                            + "origin VARCHAR(36) NOT NULL, "
+                            + "created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), "
+                            + "PRIMARY KEY (seq)"
+                            + ") ENGINE = InnoDB"
+            ),
+            Migration.of(9, "Add the optimistic version of every item",
+                    "ALTER TABLE item_data ADD COLUMN version BIGINT NOT NULL DEFAULT 0"
+            ),
+            Migration.of(10, "Drop the legacy item stat table, whose rows were packed by migration 7",
+                    "DROP TABLE IF EXISTS itemstat_data"
+            )
+    );
+
+    /**
+     * Adds the primary keys on item_data.id and itemstat_data (id, stat),
+     * if the tables were created by hand without them.
+     * <p>
+     * The stat table is rebuilt, as it may contain duplicate rows,
+     * which are dropped on the way.
+     *
+     * @param connection the {@link Connection} to the database
+     */
+    private static void addPrimaryKeys(final @NonNull Connection connection) throws SQLException {
+        try (final @NonNull Statement statement = connection.createStatement()) {
+            if (!hasPrimaryKey(connection, "item_data")) {
+                statement.executeUpdate("ALTER TABLE item_data ADD PRIMARY KEY (id)");
+            }
+            if (!hasPrimaryKey(connection, "itemstat_data")) {
+                statement.executeUpdate("DROP TABLE IF EXISTS itemstat_data_new");
+                statement.executeUpdate("CREATE TABLE itemstat_data_new ("
+                        + "id VARCHAR(64) NOT NULL, "
+                        + "stat VARCHAR(32) NOT NULL, "
+                        + "value DOUBLE NOT NULL, "
+                        + "PRIMARY KEY (id, stat)"
+                        + ") ENGINE = InnoDB");
+                statement.executeUpdate("INSERT IGNORE INTO itemstat_data_new (id, stat, value) "
+                        + "SELECT id, stat, value FROM itemstat_data");
+                statement.executeUpdate("RENAME TABLE itemstat_data TO itemstat_data_old, "
+                        + "itemstat_data_new TO itemstat_data");
+                statement.executeUpdate("DROP TABLE itemstat_data_old");
+            }
+        }
+    }
+
+    /**
+     * Changes the type of the item_data.itemstack column to a binary type,
+     * if it was created as text.
+     * <p>
+     * The existing rows are converted by the {@link ItemStackMigration}.
+     *
+     * @param connection the {@link Connection} to the database
+     */
+    private static void migrateItemStackColumn(final @NonNull Connection connection) throws SQLException {
+        final @NonNull DatabaseMetaData metaData = connection.getMetaData();
+
+        try (final @NonNull ResultSet rs = metaData.getColumns(connection.getCatalog(), null, "item_data", "itemstack")) {
+            if (!rs.next() || rs.getString("TYPE_NAME").toUpperCase(Locale.ROOT).contains("BLOB")) {
+                return;
+            }
+        }
+        try (final @NonNull Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE item_data MODIFY itemstack MEDIUMBLOB NOT NULL");
+        }
+    }
+
+    /**
+     * Adds the item_data.stats column and moves all rows of itemstat_data into it,
+     * packed by the {@link ItemStatPacking}.
+     * <p>
+     * Items without any stat rows get an empty packing. Once it ran, the stats of every item are packed,
+     * so a null column, like an empty packing, means that the item has no stats.
+     * <p>
+     * MySQL commits the added column implicitly, so it is only added if it does not exist yet,
+     * which allows the migration to be run again after it failed midway.
+     *
+     * @param connection the {@link Connection} to the database
+     */
+    private static void packStats(final @NonNull Connection connection) throws SQLException {
+        final @NonNull Map<String, Map<ItemStat, Double>> stats = new HashMap<>();
+
+        try (final @NonNull Statement statement = connection.createStatement()) {
+            if (!hasColumn(connection, "item_data", "stats")) {
+                statement.executeUpdate("ALTER TABLE item_data ADD COLUMN stats VARBINARY(512) NULL");
+            }
+
+            try (final @NonNull ResultSet rs = statement.executeQuery("SELECT id, stat, value FROM itemstat_data")) {
+                while (rs.next()) {
+                    stats.computeIfAbsent(rs.getString("id"), id -> new EnumMap<>(ItemStat.class))
+                            .put(ItemStat.valueOf(rs.getString("stat")), rs.getDouble("value"));
+                }
+            }
+        }
+        try (final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "UPDATE item_data SET stats = ? WHERE id = ?"
+                     )
+        ) {
+            int pending = 0;
+
+            for (final Map.@NonNull Entry<String, Map<ItemStat, Double>> entry : stats.entrySet()) {
+                ps.setBytes(1, ItemStatPacking.pack(entry.getValue()));
+                ps.setString(2, entry.getKey());
+                ps.addBatch();
+
+                if (++pending % 500 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        try (final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "UPDATE item_data SET stats = ? WHERE stats IS NULL"
+                     )
+        ) {
+            ps.setBytes(1, ItemStatPacking.pack(Map.of()));
+            ps.executeUpdate();
+        }
+        try (final @NonNull Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM itemstat_data");
+        }
+    }
+
+    /**
+     * Checks whether a table has a column.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param table      the name of the table
+     * @param column     the name of the column
+     * @return whether the table has the column
+     */
+    private static boolean hasColumn(
+            final @NonNull Connection connection,
+            final @NonNull String table,
+            final @NonNull String column
+    ) throws SQLException {
+        try (final @NonNull ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Checks whether a table has a primary key.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param table      the name of the table
+     * @return whether the table has a primary key
+     */
+    private static boolean hasPrimaryKey(final @NonNull Connection connection, final @NonNull String table) throws SQLException {
+        try (final @NonNull ResultSet rs = connection.getMetaData().getPrimaryKeys(connection.getCatalog(), null, table)) {
+            return rs.next();
+        }
+    }
+}
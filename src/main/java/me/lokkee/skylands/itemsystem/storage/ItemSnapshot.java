@@ -0,0 +1,233 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.core.Rarity;
+import me.lokkee.skylands.itemsystem.ItemStat;
+import me.lokkee.skylands.itemsystem.ItemType;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A compact binary snapshot file of all {@link ItemRecord}s.
+ * <p>
+ * The snapshot is written on shutdown together with the revision of the {@link ItemStore}
+ * it reflects. On the next start it is memory-mapped and used instead of the store,
+ * as long as the revision of the store did not change in the meantime.
+ * <p>
+ * Layout: magic, format version, enum fingerprint, revision, record count, the records
+ * and a trailing CRC32 of everything before it. Every record consists of its id,
+ * the ordinals of its type and rarity, a bitmask of its present stats followed by
+ * their values, its item stack bytes and, since version 2, its row version.
+ */
+public final class ItemSnapshot {
+
+    /**
+     * The magic number at the start of every snapshot file.
+     */
+    private static final int MAGIC = 0x534B4953;
+
+    /**
+     * The version of the snapshot format.
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * The fingerprint of the enum constants, whose ordinals are stored in the snapshot.
+     * <p>
+     * Adding, removing or reordering a constant invalidates all existing snapshots.
+     */
+    static final long FINGERPRINT = fingerprint();
+
+    /**
+     * The {@link Path} of the snapshot file.
+     */
+    private final @NonNull Path file;
+
+    /**
+     * Constructs an {@link ItemSnapshot}.
+     *
+     * @param file the {@link Path} of the snapshot file
+     */
+    public ItemSnapshot(final @NonNull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads all {@link ItemRecord}s of the snapshot, if it reflects the given revision.
+     * <p>
+     * The whole file is validated before the first ItemRecord is passed to the consumer.
+     *
+     * @param revision the current revision of the {@link ItemStore}
+     * @param consumer the {@link Consumer}, which is called with every ItemRecord
+     * @return whether the snapshot was read, false if there is none or it is stale
+     * @throws IOException if the snapshot is corrupt or cannot be read
+     */
+    public boolean read(final long revision, final @NonNull Consumer<ItemRecord> consumer) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (final @NonNull FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+
+            if (size < 36 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size " + size + ".");
+            }
+            final @NonNull MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            final @NonNull CRC32 crc = new CRC32();
+
+            crc.update(buffer.slice(0, (int) size - 8));
+
+            if (crc.getValue() != buffer.getLong((int) size - 8)) {
+                throw new IOException("The checksum of the snapshot does not match.");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getLong() != FINGERPRINT) {
+                return false;
+            }
+            if (buffer.getLong() != revision) {
+                return false;
+            }
+            buffer.limit((int) size - 8);
+
+            final int count = buffer.getInt();
+
+            for (int i = 0; i < count; i++) {
+                consumer.accept(readRecord(buffer, FORMAT_VERSION));
+            }
+            return true;
+        } catch (final @NonNull BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("The snapshot is truncated.", e);
+        }
+    }
+
+    /**
+     * Writes {@link ItemRecord}s as the snapshot of a revision.
+     * <p>
+     * The snapshot is written to a temporary file first and then moved
+     * into place, so a crash never leaves a half-written snapshot behind.
+     *
+     * @param revision the revision of the {@link ItemStore}, which the ItemRecords reflect
+     * @param records  the ItemRecords of all Items
+     */
+    public void write(final long revision, final @NonNull List<ItemRecord> records) throws IOException {
+        final @NonNull Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        final @NonNull CRC32 crc = new CRC32();
+
+        try (final @NonNull DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)),
+                crc
+        ))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(FINGERPRINT);
+            out.writeLong(revision);
+            out.writeInt(records.size());
+
+            for (final @NonNull ItemRecord record : records) {
+                writeRecord(out, record);
+            }
+            out.writeLong(crc.getValue());
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the snapshot file, if it exists.
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Writes a single {@link ItemRecord}.
+     *
+     * @param out    the {@link DataOutputStream} of the snapshot
+     * @param record the ItemRecord which is to be written
+     */
+    static void writeRecord(final @NonNull DataOutputStream out, final @NonNull ItemRecord record) throws IOException {
+        final byte @NonNull [] id = record.id().getBytes(StandardCharsets.UTF_8);
+        int mask = 0;
+
+        for (final @NonNull ItemStat stat : record.stats().keySet()) {
+            mask |= 1 << stat.ordinal();
+        }
+        out.writeShort(id.length);
+        out.write(id);
+        out.writeByte(record.type().ordinal());
+        out.writeByte(record.rarity().ordinal());
+        out.writeInt(mask);
+
+        for (final @NonNull ItemStat stat : ItemStat.values()) {
+            if ((mask & 1 << stat.ordinal()) != 0) {
+                out.writeDouble(record.stats().get(stat));
+            }
+        }
+        out.writeInt(record.itemStack().length);
+        out.write(record.itemStack());
+        out.writeLong(record.version());
+    }
+
+    /**
+     * Reads a single {@link ItemRecord}.
+     *
+     * @param buffer        the {@link ByteBuffer}, which is positioned at the ItemRecord
+     * @param formatVersion the format version of the file, as records of version 1 have no row version
+     * @return the ItemRecord
+     */
+    static @NonNull ItemRecord readRecord(final @NonNull ByteBuffer buffer, final int formatVersion) {
+        final byte @NonNull [] id = new byte[buffer.getShort() & 0xFFFF];
+
+        buffer.get(id);
+
+        final @NonNull ItemType type = ItemType.values()[buffer.get()];
+        final @NonNull Rarity rarity = Rarity.values()[buffer.get()];
+        final int mask = buffer.getInt();
+        final @NonNull Map<ItemStat, Double> stats = new EnumMap<>(ItemStat.class);
+
+        for (final @NonNull ItemStat stat : ItemStat.values()) {
+            if ((mask & 1 << stat.ordinal()) != 0) {
+                stats.put(stat, buffer.getDouble());
+            }
+        }
+        final byte @NonNull [] itemStack = new byte[buffer.getInt()];
+
+        buffer.get(itemStack);
+
+        final long version = formatVersion >= 2 ? buffer.getLong() : 0;
+
+        return new ItemRecord(new String(id, StandardCharsets.UTF_8), type, rarity, itemStack, stats, version);
+    }
+
+    /**
+     * Computes the fingerprint of the enum constants, whose ordinals are stored in the snapshot.
+     *
+     * @return the fingerprint
+     */
+    private static long fingerprint() {
+        final @NonNull CRC32 crc = new CRC32();
+
+        Stream.of(ItemType.values(), Rarity.values(), ItemStat.values())
+                .flatMap(Arrays::stream)
+                .forEach(constant -> crc.update((constant.name() + ';').getBytes(StandardCharsets.UTF_8)));
+
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,146 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.Skylands;
+import me.lokkee.skylands.core.database.DatabaseManager;
+import me.lokkee.skylands.core.utils.ItemSerializer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Migrates the rows of the item_data.itemstack column from {@link Base64} text to binary.
+ * <p>
+ * The column type is changed by the {@link ItemSchema} migrations at startup. The existing
+ * rows are then converted online in batches, while readers accept both formats.
+ */
+public final class ItemStackMigration {
+
+    /**
+     * The main plugin instance of {@link Skylands}.
+     */
+    private final @NonNull Skylands skylands;
+
+    /**
+     * The main {@link DatabaseManager} instance.
+     */
+    private final @NonNull DatabaseManager databaseManager;
+
+    /**
+     * The amount of rows which are converted in one batch.
+     */
+    private final int batchSize;
+
+    /**
+     * Constructs the {@link ItemStackMigration}.
+     *
+     * @param skylands        the main plugin instance of {@link Skylands}
+     * @param databaseManager the main {@link DatabaseManager} instance
+     */
+    public ItemStackMigration(
+            final @NonNull Skylands skylands,
+            final @NonNull DatabaseManager databaseManager
+    ) {
+        this.skylands = skylands;
+        this.databaseManager = databaseManager;
+
+        batchSize = Math.max(1, skylands.getConfig().getInt("items.save.batch-size", 500));
+    }
+
+    /**
+     * Converts all rows, which are still stored as {@link Base64} text,
+     * to binary on the executor of the {@link DatabaseManager}.
+     *
+     * @return a {@link CompletableFuture} of the amount of converted rows
+     */
+    public @NonNull CompletableFuture<Integer> convertRowsAsync() {
+        return CompletableFuture.supplyAsync(this::convertRows, databaseManager.getExecutor())
+                .whenComplete((converted, e) -> {
+                    if (e != null) {
+                        skylands.getLogger().log(Level.WARNING, "Failed to convert the item stacks to binary.", e);
+                    }
+                });
+    }
+
+    /**
+     * Converts all rows, which are still stored as {@link Base64} text, to binary.
+     * <p>
+     * The rows are walked in batches ordered by their id. Every batch is
+     * committed on its own, and a row is only updated if it was not changed
+     * in the meantime.
+     *
+     * @return the amount of converted rows
+     */
+    private int convertRows() {
+        final long start = System.nanoTime();
+
+        int converted = 0;
+        @NonNull String lastId = "";
+
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection();
+             final @NonNull PreparedStatement selectPs =
+                     connection.prepareStatement(
+                             "SELECT id, itemstack FROM item_data WHERE id > ? ORDER BY id LIMIT ?"
+                     );
+             final @NonNull PreparedStatement updatePs =
+                     connection.prepareStatement(
+                             "UPDATE item_data SET itemstack = ? WHERE id = ? AND itemstack = ?"
+                     )
+        ) {
+            connection.setAutoCommit(false);
+
+            while (true) {
+                selectPs.setString(1, lastId);
+                selectPs.setInt(2, batchSize);
+
+                int rows = 0;
+                int pending = 0;
+
+                try (final @NonNull ResultSet rs = selectPs.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        lastId = rs.getString("id");
+
+                        final byte @NonNull [] data = rs.getBytes("itemstack");
+
+                        if (!ItemSerializer.isBase64(data)) {
+                            continue;
+                        }
+                        updatePs.setBytes(1, Base64.getDecoder().decode(data));
+                        updatePs.setString(2, lastId);
+                        updatePs.setBytes(3, data);
+                        updatePs.addBatch();
+                        pending++;
+                    }
+                }
+                if (pending > 0) {
+                    for (final int count : updatePs.executeBatch()) {
+                        converted += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                    }
+                }
+                connection.commit();
+
+                if (rows < batchSize) {
+                    break;
+                }
+            }
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+        if (converted > 0) {
+            skylands.getLogger().info(String.format(
+                    "Converted %d item stacks from Base64 to binary in %d ms.",
+                    converted,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            ));
+        }
+        return converted;
+    }
+}
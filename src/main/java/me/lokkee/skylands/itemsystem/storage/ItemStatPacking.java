@@ -0,0 +1,87 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.itemsystem.ItemStat;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The packed layout of all {@link ItemStat}s of an item in the item_data.stats column.
+ * <p>
+ * Layout: format version, a presence bitmap keyed by the ordinals of the ItemStats and the
+ * value of every present ItemStat in the order of their ordinals. An item with all ItemStats
+ * takes 5 bytes plus 8 bytes per ItemStat, instead of one row per ItemStat.
+ * <p>
+ * Values of ordinals, which are unknown to this version, are ignored when reading,
+ * as they always follow all known ones.
+ */
+public final class ItemStatPacking {
+
+    /**
+     * The version of the packed layout.
+     */
+    private static final byte FORMAT_VERSION = 1;
+
+    /**
+     * Constructs the {@link ItemStatPacking}.
+     */
+    private ItemStatPacking() {
+    }
+
+    /**
+     * Packs the values of {@link ItemStat}s.
+     *
+     * @param stats the values of the ItemStats
+     * @return the packed bytes
+     */
+    public static byte @NonNull [] pack(final @NonNull Map<ItemStat, Double> stats) {
+        final @NonNull ByteBuffer buffer = ByteBuffer.allocate(5 + stats.size() * Double.BYTES);
+        int mask = 0;
+
+        for (final @NonNull ItemStat stat : stats.keySet()) {
+            mask |= 1 << stat.ordinal();
+        }
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(mask);
+
+        for (final @NonNull ItemStat stat : ItemStat.values()) {
+            if ((mask & 1 << stat.ordinal()) != 0) {
+                buffer.putDouble(stats.get(stat));
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Unpacks the values of {@link ItemStat}s.
+     *
+     * @param packed the packed bytes
+     * @return the values of the ItemStats
+     * @throws IllegalArgumentException if the bytes are no packed ItemStats
+     */
+    public static @NonNull Map<ItemStat, Double> unpack(final byte @NonNull [] packed) {
+        final @NonNull ByteBuffer buffer = ByteBuffer.wrap(packed);
+        final @NonNull Map<ItemStat, Double> stats = new EnumMap<>(ItemStat.class);
+
+        try {
+            final byte version = buffer.get();
+
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown packed stat version " + version + ".");
+            }
+            final int mask = buffer.getInt();
+
+            for (final @NonNull ItemStat stat : ItemStat.values()) {
+                if ((mask & 1 << stat.ordinal()) != 0) {
+                    stats.put(stat, buffer.getDouble());
+                }
+            }
+        } catch (final @NonNull BufferUnderflowException e) {
+            throw new IllegalArgumentException("The packed stats are truncated.", e);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,182 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.Skylands;
+import me.lokkee.skylands.core.Rarity;
+import me.lokkee.skylands.core.database.DatabaseManager;
+import me.lokkee.skylands.itemsystem.Item;
+import me.lokkee.skylands.itemsystem.ItemType;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The backend, which persists all {@link Item}s as {@link ItemRecord}s.
+ * <p>
+ * The item stack bytes of the records are opaque to the store: they are written
+ * as they are given and read back as they were stored, so any encoding is up to the caller.
+ * <p>
+ * All methods block and must not be called on the main thread,
+ * except while the plugin is being enabled or disabled.
+ */
+public interface ItemStore {
+
+    /**
+     * Creates the {@link ItemStore} of the configured type of the {@link DatabaseManager}.
+     *
+     * @param skylands        the main plugin instance of {@link Skylands}
+     * @param databaseManager the main {@link DatabaseManager} instance
+     * @return the ItemStore
+     */
+    static @NonNull ItemStore of(
+            final @NonNull Skylands skylands,
+            final @NonNull DatabaseManager databaseManager
+    ) {
+        return switch (databaseManager.getType()) {
+            case MYSQL, H2 -> new SqlItemStore(skylands, databaseManager);
+            case MEMORY -> new MemoryItemStore();
+        };
+    }
+
+    /**
+     * Prepares the store, so it can be read from and written to.
+     */
+    void open();
+
+    /**
+     * Reads all stored {@link ItemRecord}s in their stored order.
+     *
+     * @param consumer the {@link Consumer}, which is called with every ItemRecord as soon as it is read
+     */
+    void loadItems(@NonNull Consumer<ItemRecord> consumer);
+
+    /**
+     * Reads the ids of all stored Items in their stored order, with their {@link ItemType}
+     * and their {@link Rarity}, but without the rest of their records.
+     *
+     * @param consumer the {@link IdConsumer}, which is called with every id as soon as it is read
+     */
+    void loadIds(@NonNull IdConsumer consumer);
+
+    /**
+     * Gets the revision of the store, which is incremented by every write.
+     *
+     * @return the current revision
+     */
+    long getRevision();
+
+    /**
+     * Reads the current stored {@link ItemRecord}s of some Items.
+     *
+     * @param ids the ids of the Items
+     * @return the ItemRecords of all Items, which are stored
+     */
+    @NonNull List<ItemRecord> readItems(@NonNull Collection<String> ids);
+
+    /**
+     * Writes {@link ItemRecord}s and deletions in one atomic unit.
+     * <p>
+     * Deletions are applied before the records, and the stats of every record
+     * replace all previously stored stats of its Item.
+     * <p>
+     * A record is only written, if its Item still has the version of the record, which is then
+     * incremented, or if its Item was never stored, which a version of 0 marks. Likewise, an Item
+     * is only deleted, if it still has the version of its deletion. Otherwise someone else changed
+     * or deleted the Item concurrently, and the record or the deletion is skipped and reported as conflict.
+     * Deletions of Items which are not stored anymore are no conflicts.
+     *
+     * @param records   the ItemRecords which are to be upserted
+     * @param deletions the versions of the Items which are to be deleted by their ids
+     * @return the {@link WriteResult}
+     */
+    @NonNull WriteResult write(@NonNull List<ItemRecord> records, @NonNull Map<String, Long> deletions);
+
+    /**
+     * Writes imported {@link ItemRecord}s in one atomic unit, regardless of their versions.
+     * <p>
+     * Stored Items are overwritten and their version is incremented, so concurrent
+     * changes of them conflict with the import.
+     *
+     * @param records the ItemRecords which are to be upserted
+     * @return the versions of the written Items after the import by their id
+     */
+    @NonNull Map<String, Long> importItems(@NonNull List<ItemRecord> records);
+
+    /**
+     * Gets the sequence of the latest change in the change feed of the store.
+     *
+     * @return the latest sequence, or 0 if there is none
+     */
+    long getChangeSequence();
+
+    /**
+     * Gets the sequence of the oldest change, which is left in the change feed of the store.
+     * <p>
+     * If it is newer than the change after the last read one, changes were pruned before they were read.
+     *
+     * @return the oldest sequence, or 0 if there is none
+     */
+    long getOldestChangeSequence();
+
+    /**
+     * Reads the changes of the change feed after a sequence, which were written by other servers,
+     * and resolves them to the current stored state of their Items in one batch.
+     *
+     * @param sequence the sequence of the last read change
+     * @param limit    the maximum amount of changes which are read
+     * @return the {@link ItemChanges}
+     */
+    @NonNull ItemChanges readChanges(long sequence, int limit);
+
+    /**
+     * Removes all changes from the change feed, which are older than a retention.
+     * <p>
+     * The latest change is always kept, so {@link #getOldestChangeSequence()} can tell
+     * whether a reader missed any changes.
+     *
+     * @param retentionMillis the time in milliseconds, for which changes are kept
+     */
+    void pruneChanges(long retentionMillis);
+
+    /**
+     * Reads all stored compression dictionaries, from the oldest to the newest.
+     *
+     * @return the bytes of the dictionaries
+     */
+    @NonNull List<byte[]> loadDictionaries();
+
+    /**
+     * Stores a compression dictionary, unless one with the same id is stored already.
+     *
+     * @param id         the id of the dictionary
+     * @param dictionary the bytes of the dictionary
+     */
+    void saveDictionary(int id, byte @NonNull [] dictionary);
+
+    /**
+     * The result of a write to an {@link ItemStore}.
+     *
+     * @param revision  the revision of the store after the write
+     * @param conflicts the ids of the Items, whose records were skipped, as they were changed concurrently
+     */
+    record WriteResult(long revision, @NonNull List<String> conflicts) {
+    }
+
+    /**
+     * Accepts the id of a stored {@link Item} with its {@link ItemType} and its {@link Rarity}.
+     */
+    @FunctionalInterface
+    interface IdConsumer {
+
+        /**
+         * Accepts the id of a stored {@link Item}.
+         *
+         * @param id     the id of the Item
+         * @param type   the ItemType of the Item
+         * @param rarity the Rarity of the Item
+         */
+        void accept(@NonNull String id, @NonNull ItemType type, @NonNull Rarity rarity);
+    }
+}
@@ -0,0 +1,1168 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.Skylands;
+import me.lokkee.skylands.core.database.DatabaseManager;
+import me.lokkee.skylands.itemsystem.Item;
+import me.lokkee.skylands.itemsystem.ItemRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * The write-behind persistence of all {@link Item}s.
+ * <p>
+ * Every mutation marks the id of an Item as dirty. Periodically, or once enough
+ * changes piled up, a save round takes over all dirty ids. The round takes
+ * {@link ItemRecord} snapshots of its Items on the main thread, but only within
+ * the configured budget per tick, so large rounds are spread across several ticks.
+ * Finished rounds are written in order to the {@link ItemStore} on the writer thread
+ * of the {@link DatabaseManager}, which never rejects them. Several changes to the
+ * same Item are coalesced into a single upsert.
+ * <p>
+ * Items which change again while their round is running are marked dirty for the next round.
+ * The dirty state is only ever touched on the main thread.
+ */
+public final class ItemWriteBehind {
+
+    /**
+     * The message of the failure of callers, whose changes could not be written before the shutdown.
+     */
+    private static final @NonNull String UNWRITTEN_ON_SHUTDOWN =
+            "The change could not be written before the shutdown and was saved to the recovery file.";
+
+    /**
+     * The main plugin instance of {@link Skylands}.
+     */
+    private final @NonNull Skylands skylands;
+
+    /**
+     * The main {@link ItemRegistry} instance.
+     */
+    private final @NonNull ItemRegistry itemRegistry;
+
+    /**
+     * The main {@link DatabaseManager} instance.
+     */
+    private final @NonNull DatabaseManager databaseManager;
+
+    /**
+     * The {@link ItemStore}, which the changes are written to.
+     */
+    private final @NonNull ItemStore store;
+
+    /**
+     * The {@link ItemCodec} of the stored item stacks.
+     */
+    private final @NonNull ItemCodec codec;
+
+    /**
+     * The ids of all {@link Item}s which have changes that are not yet written.
+     */
+    private final @NonNull Set<String> dirtyIds = new LinkedHashSet<>();
+
+    /**
+     * The ids of all {@link Item}s which were deleted but not yet removed from the database.
+     */
+    private final @NonNull Set<String> deletedIds = new LinkedHashSet<>();
+
+    /**
+     * The last write which was handed to the writer thread.
+     * <p>
+     * Every write is chained onto it, so all writes happen in order.
+     */
+    private @NonNull CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+    /**
+     * The revision of the {@link ItemStore}, which the written Items reflect,
+     * or -1 if it is unknown, because the store was also written by someone else.
+     */
+    private volatile long revision = -1;
+
+    /**
+     * The {@link ItemJournal}, which is checkpointed after every write, or null if it is disabled.
+     */
+    private final @Nullable ItemJournal journal;
+
+    /**
+     * The amount of flushes so far.
+     */
+    private long flushCount;
+
+    /**
+     * The number of the flush, after which the {@link ItemJournal} may be checkpointed again.
+     * <p>
+     * A failed write blocks all checkpoints, until the flush which contains
+     * its requeued changes is written.
+     */
+    private volatile long checkpointAfter;
+
+    /**
+     * The amount of pending changes which triggers an immediate save round.
+     */
+    private final int flushThreshold;
+
+    /**
+     * The maximum amount of changed Items, which are buffered before further changes are rejected.
+     */
+    private final int maxBuffered;
+
+    /**
+     * The interval in nanoseconds, in which save rounds are started.
+     */
+    private final long flushInterval;
+
+    /**
+     * The time in nanoseconds per tick, which may be spent on taking snapshots.
+     */
+    private final long tickBudget;
+
+    /**
+     * The amount of changes since the last save round was started.
+     */
+    private int changes;
+
+    /**
+     * The {@link System#nanoTime()} at which the last save round was started.
+     */
+    private long lastRoundAt;
+
+    /**
+     * The {@link System#nanoTime()} of the oldest change, which no save round took over yet, or 0 if there is none.
+     */
+    private long oldestChangeAt;
+
+    /**
+     * The save {@link Round}, which is currently taking snapshots, or null if there is none.
+     */
+    private @Nullable Round round;
+
+    /**
+     * The last finished save {@link Round}, or null if there was none yet.
+     */
+    private @Nullable Round lastRound;
+
+    /**
+     * The amount of rounds, which were handed to the writer thread but are not yet written.
+     */
+    private final @NonNull AtomicInteger pendingWrites = new AtomicInteger();
+
+    /**
+     * All rounds, which were handed to the writer thread and were neither written nor requeued yet.
+     */
+    private final @NonNull Queue<Round> unwrittenRounds = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The versions of the last writes of all Items, which were written by this server.
+     */
+    private final @NonNull Map<String, Long> writtenVersions = new ConcurrentHashMap<>();
+
+    /**
+     * The versions of all deleted Items, which were known when they were deleted, by the ids of the Items.
+     */
+    private final @NonNull Map<String, Long> deletedVersions = new ConcurrentHashMap<>();
+
+    /**
+     * The futures of callers, which wait for the next write of an Item, by the id of the Item.
+     * <p>
+     * Only used on the main thread. A new round takes over all of them.
+     */
+    private final @NonNull Map<String, List<CompletableFuture<Void>>> waiters = new HashMap<>();
+
+    /**
+     * The amount of records, which were discarded because of concurrent changes by other servers.
+     */
+    private final @NonNull AtomicLong conflictCount = new AtomicLong();
+
+    /**
+     * The handler, which is called on the main thread with the ids of conflicting Items, or null if there is none.
+     */
+    private volatile @Nullable Consumer<List<String>> conflictHandler;
+
+    /**
+     * The amount of connections, which write the final changes on shutdown in parallel.
+     */
+    private final int shutdownParallelism;
+
+    /**
+     * The {@link BukkitTask}, which runs the save rounds every tick.
+     */
+    private @Nullable BukkitTask flushTask;
+
+    /**
+     * Constructs the {@link ItemWriteBehind}.
+     *
+     * @param skylands        the main plugin instance of {@link Skylands}
+     * @param itemRegistry    the main {@link ItemRegistry} instance
+     * @param databaseManager the main {@link DatabaseManager} instance
+     * @param store           the {@link ItemStore}, which the changes are written to
+     * @param codec           the {@link ItemCodec} of the stored item stacks
+     * @param journal         the {@link ItemJournal}, which is checkpointed after every write, or null
+     */
+    public ItemWriteBehind(
+            final @NonNull Skylands skylands,
+            final @NonNull ItemRegistry itemRegistry,
+            final @NonNull DatabaseManager databaseManager,
+            final @NonNull ItemStore store,
+            final @NonNull ItemCodec codec,
+            final @Nullable ItemJournal journal
+    ) {
+        this.skylands = skylands;
+        this.itemRegistry = itemRegistry;
+        this.databaseManager = databaseManager;
+        this.store = store;
+        this.codec = codec;
+        this.journal = journal;
+
+        flushThreshold = Math.max(1, skylands.getConfig().getInt("items.write-behind.flush-threshold", 100));
+        maxBuffered = Math.max(1, skylands.getConfig().getInt("items.write-behind.max-buffered", 100000));
+        flushInterval = TimeUnit.SECONDS.toNanos(Math.max(1, skylands.getConfig().getLong("items.write-behind.flush-interval", 5)));
+        tickBudget = (long) (Math.max(0.1, skylands.getConfig().getDouble("items.write-behind.tick-budget", 2)) * 1_000_000);
+        shutdownParallelism = Math.max(1, skylands.getConfig().getInt("items.shutdown.parallelism", 4));
+    }
+
+    /**
+     * Gets the revision of the {@link ItemStore}, which the written Items reflect.
+     * <p>
+     * Only once all pending changes are written, it also reflects the Items in memory.
+     *
+     * @return the revision, or -1 if it is unknown
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Sets the revision of the {@link ItemStore}, which the loaded Items reflect.
+     *
+     * @param revision the revision of the loaded Items
+     */
+    public void setRevision(final long revision) {
+        this.revision = revision;
+    }
+
+    /**
+     * Starts the periodic save rounds of the pending changes.
+     */
+    public void start() {
+        lastRoundAt = System.nanoTime();
+        flushTask = Bukkit.getScheduler().runTaskTimer(skylands, this::tick, 1, 1);
+
+        databaseManager.getCircuitBreaker().onRecovery(() -> {
+            if (skylands.isEnabled()) {
+                Bukkit.getScheduler().runTask(skylands, this::drain);
+            }
+        });
+    }
+
+    /**
+     * Sets the handler, which is called on the main thread with the ids of the Items, whose local
+     * changes were discarded, because another server changed them concurrently.
+     *
+     * @param conflictHandler the handler of the conflicting ids
+     */
+    public void onConflict(final @NonNull Consumer<List<String>> conflictHandler) {
+        this.conflictHandler = conflictHandler;
+    }
+
+    /**
+     * Checks whether an {@link Item} has local changes, which are not yet written.
+     * <p>
+     * Must be called on the main thread.
+     *
+     * @param id the id of the Item
+     * @return whether the Item has unwritten changes
+     */
+    public boolean isPending(final @NonNull String id) {
+        if (dirtyIds.contains(id) || deletedIds.contains(id)) {
+            return true;
+        }
+        if (round != null && round.changedIds.contains(id)) {
+            return true;
+        }
+        for (final @NonNull Round unwritten : unwrittenRounds) {
+            if (unwritten.changedIds.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Discards the pending changes of {@link Item}s, which were overwritten by an import.
+     * <p>
+     * Changes which a round already took over are not recalled. As the import advanced the
+     * versions of the Items, their writes conflict and are discarded as well, unless they
+     * were written before the import. The callers, which wait for a discarded change, are failed.
+     * <p>
+     * Must be called on the main thread.
+     *
+     * @param ids the ids of the imported Items
+     */
+    public void discard(final @NonNull Collection<String> ids) {
+        for (final @NonNull String id : ids) {
+            dirtyIds.remove(id);
+
+            if (deletedIds.remove(id)) {
+                deletedVersions.remove(id);
+            }
+            fail(waiters.remove(id), String.format("The change of the item %s was overwritten by an import.", id));
+        }
+    }
+
+    /**
+     * Checks whether the local buffer of pending changes is full,
+     * which happens if the database is unreachable for a long time.
+     *
+     * @return whether further changes should be rejected
+     */
+    public boolean isBufferFull() {
+        return dirtyIds.size() + deletedIds.size() + (round != null ? round.ids.size() : 0) >= maxBuffered;
+    }
+
+    /**
+     * Begins a save round of all changes, which were buffered while the database was unreachable,
+     * without waiting for the flush interval.
+     */
+    private void drain() {
+        if (round != null || (dirtyIds.isEmpty() && deletedIds.isEmpty())) {
+            return;
+        }
+        skylands.getLogger().info(String.format(
+                "Writing %d item changes, which were buffered while the database was unreachable.",
+                dirtyIds.size() + deletedIds.size()
+        ));
+        round = beginRound();
+    }
+
+    /**
+     * Marks an {@link Item} as dirty, so its current state is going to be written.
+     *
+     * @param id the id of the changed Item
+     */
+    public void markDirty(final @NonNull String id) {
+        if (deletedIds.remove(id)) {
+            deletedVersions.remove(id);
+        }
+        dirtyIds.add(id);
+
+        countChange();
+    }
+
+    /**
+     * Marks an {@link Item} as deleted, so it is going to be removed from the database,
+     * unless it was changed by another server since the given version.
+     *
+     * @param id      the id of the deleted Item
+     * @param version the version of the deleted Item
+     */
+    public void markDeleted(final @NonNull String id, final long version) {
+        deletedVersions.merge(id, version, Math::max);
+        dirtyIds.remove(id);
+        deletedIds.add(id);
+
+        countChange();
+    }
+
+    /**
+     * Counts a change and requests a save round once the flush threshold is reached.
+     */
+    private void countChange() {
+        if (oldestChangeAt == 0) {
+            oldestChangeAt = System.nanoTime();
+        }
+        ++changes;
+    }
+
+    /**
+     * Advances the save rounds by one tick.
+     * <p>
+     * A new round is started once the flush interval passed or the flush threshold is reached.
+     * The current round then takes snapshots until the tick budget is spent,
+     * and is handed to the background writer once it took all of them.
+     */
+    private void tick() {
+        if (!databaseManager.getCircuitBreaker().allowRequest()) {
+            return;
+        }
+        if (round == null) {
+            if (dirtyIds.isEmpty() && deletedIds.isEmpty()) {
+                return;
+            }
+            if (changes < flushThreshold && System.nanoTime() - lastRoundAt < flushInterval) {
+                return;
+            }
+            round = beginRound();
+        }
+        final long start = System.nanoTime();
+
+        round.snapshot(tickBudget);
+        round.ticks++;
+        round.maxTickNanos = Math.max(round.maxTickNanos, System.nanoTime() - start);
+
+        if (round.ids.isEmpty()) {
+            submit(round);
+        }
+    }
+
+    /**
+     * Takes snapshots of all pending changes and hands them to the background writer,
+     * regardless of the tick budget.
+     * <p>
+     * Must be called on the main thread.
+     *
+     * @return a {@link CompletableFuture} which completes once the snapshots are written
+     */
+    public @NonNull CompletableFuture<Void> flush() {
+        submitAll();
+
+        return lastWrite;
+    }
+
+    /**
+     * Takes snapshots of all pending changes and hands them to the background writer.
+     *
+     * @return the submitted {@link Round}s
+     */
+    private @NonNull List<Round> submitAll() {
+        final @NonNull List<Round> submitted = new ArrayList<>(2);
+
+        if (round != null) {
+            final @NonNull Round current = round;
+
+            current.snapshot(Long.MAX_VALUE);
+            submit(current);
+            submitted.add(current);
+        }
+        if (!dirtyIds.isEmpty() || !deletedIds.isEmpty()) {
+            final @NonNull Round next = beginRound();
+
+            next.snapshot(Long.MAX_VALUE);
+            submit(next);
+            submitted.add(next);
+        }
+        return submitted;
+    }
+
+    /**
+     * Gets a {@link CompletableFuture}, which completes once the pending change of an {@link Item}
+     * is written by a regular save round, without forcing one.
+     * <p>
+     * It fails if the change conflicts with a concurrent change of another server.
+     * If a write fails, the change is requeued and the future waits for the next round.
+     * <p>
+     * Must be called on the main thread, right after the change was marked.
+     *
+     * @param id the id of the changed Item
+     * @return a CompletableFuture, which completes on the writer thread once the change is written
+     */
+    public @NonNull CompletableFuture<Void> awaitWrite(final @NonNull String id) {
+        if (!dirtyIds.contains(id) && !deletedIds.contains(id)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final @NonNull CompletableFuture<Void> future = new CompletableFuture<>();
+
+        waiters.computeIfAbsent(id, key -> new ArrayList<>(1)).add(future);
+
+        return future;
+    }
+
+    /**
+     * Completes the futures of callers, which wait for the write of some {@link Item}s.
+     *
+     * @param waiters   the futures by the ids of the Items
+     * @param conflicts the ids of the Items, whose changes conflicted and were discarded
+     */
+    private static void release(
+            final @NonNull Map<String, List<CompletableFuture<Void>>> waiters,
+            final @NonNull List<String> conflicts
+    ) {
+        waiters.forEach((id, futures) -> {
+            for (final @NonNull CompletableFuture<Void> future : futures) {
+                if (conflicts.contains(id)) {
+                    future.completeExceptionally(new ItemChangeDiscardedException(String.format(
+                            "The item %s was changed concurrently by another server, so the change was discarded.",
+                            id
+                    )));
+                } else {
+                    future.complete(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Fails the futures of callers, whose changes are not going to be written.
+     *
+     * @param futures the futures, or null if there are none
+     * @param message the message of the failure
+     */
+    private static void fail(final @Nullable List<CompletableFuture<Void>> futures, final @NonNull String message) {
+        if (futures == null) {
+            return;
+        }
+        for (final @NonNull CompletableFuture<Void> future : futures) {
+            future.completeExceptionally(new ItemChangeDiscardedException(message));
+        }
+    }
+
+    /**
+     * Concatenates two lists of futures.
+     *
+     * @param first  the first list
+     * @param second the second list
+     * @return a new list, which contains the futures of both
+     */
+    private static @NonNull List<CompletableFuture<Void>> concat(
+            final @NonNull List<CompletableFuture<Void>> first,
+            final @NonNull List<CompletableFuture<Void>> second
+    ) {
+        final @NonNull List<CompletableFuture<Void>> futures = new ArrayList<>(first.size() + second.size());
+
+        futures.addAll(first);
+        futures.addAll(second);
+
+        return futures;
+    }
+
+    /**
+     * Starts a save {@link Round}, which takes over all pending changes.
+     *
+     * @return the Round
+     */
+    private @NonNull Round beginRound() {
+        final @NonNull Round round = new Round(
+                new ArrayDeque<>(dirtyIds),
+                new ArrayList<>(deletedIds),
+                Map.copyOf(waiters),
+                ++flushCount,
+                journal != null ? journal.getSequence() : 0,
+                oldestChangeAt
+        );
+        dirtyIds.clear();
+        deletedIds.clear();
+        waiters.clear();
+        changes = 0;
+        oldestChangeAt = 0;
+        lastRoundAt = System.nanoTime();
+
+        return round;
+    }
+
+    /**
+     * Hands a save {@link Round}, which took all of its snapshots, to the background writer.
+     *
+     * @param round the Round which is to be written
+     */
+    private void submit(final @NonNull Round round) {
+        if (this.round == round) {
+            this.round = null;
+        }
+        lastRound = round;
+
+        final @NonNull List<ItemRecord> records = round.records;
+        final @NonNull List<String> deletions = round.deletions;
+        final long flush = round.number;
+        final long sequence = round.sequence;
+
+        pendingWrites.incrementAndGet();
+        unwrittenRounds.add(round);
+
+        lastWrite = lastWrite
+                .handle((result, e) -> null)
+                .thenApplyAsync(ignored -> write(records, deletions), databaseManager.getWriteExecutor())
+                .whenComplete((result, e) -> {
+                    pendingWrites.decrementAndGet();
+
+                    if (e != null) {
+                        skylands.getLogger().log(Level.WARNING, "Failed to write item changes.", e);
+                        checkpointAfter = Long.MAX_VALUE;
+
+                        if (skylands.isEnabled()) {
+                            Bukkit.getScheduler().runTask(skylands, () -> {
+                                unwrittenRounds.remove(round);
+                                requeue(records, deletions);
+                                round.waiters.forEach((id, futures) ->
+                                        waiters.computeIfAbsent(id, key -> new ArrayList<>(1)).addAll(futures)
+                                );
+                            });
+                        }
+                        return;
+                    }
+                    unwrittenRounds.remove(round);
+
+                    if (journal != null && flush > checkpointAfter) {
+                        journal.checkpointAsync(sequence);
+                    }
+                })
+                .thenAccept(result -> release(round.waiters, result.conflicts()));
+    }
+
+    /**
+     * Gets the current {@link Status} of the save rounds.
+     * <p>
+     * Must be called on the main thread.
+     *
+     * @return the Status
+     */
+    public @NonNull Status getStatus() {
+        final long now = System.nanoTime();
+        long oldest = oldestChangeAt;
+
+        if (round != null && round.oldestChangeAt != 0 && (oldest == 0 || round.oldestChangeAt < oldest)) {
+            oldest = round.oldestChangeAt;
+        }
+        return new Status(
+                dirtyIds.size() + deletedIds.size(),
+                round != null ? round.ids.size() : 0,
+                round != null ? round.size : 0,
+                oldest != 0 ? TimeUnit.NANOSECONDS.toMillis(now - oldest) : 0,
+                pendingWrites.get(),
+                lastRound != null ? lastRound.size : 0,
+                lastRound != null ? lastRound.ticks : 0,
+                lastRound != null ? lastRound.maxTickNanos / 1_000_000.0 : 0,
+                tickBudget / 1_000_000.0,
+                !databaseManager.getCircuitBreaker().allowRequest(),
+                conflictCount.get()
+        );
+    }
+
+    /**
+     * Marks the changes of a failed write as pending again,
+     * unless they have been superseded in the meantime.
+     *
+     * @param records   the ItemRecords which failed to be written
+     * @param deletions the ids of the deletions which failed to be written
+     */
+    private void requeue(final @NonNull List<ItemRecord> records, final @NonNull List<String> deletions) {
+        for (final @NonNull ItemRecord record : records) {
+            if (itemRegistry.isIdValid(record.id())) {
+                dirtyIds.add(record.id());
+            }
+        }
+        for (final @NonNull String id : deletions) {
+            if (!itemRegistry.isIdValid(id)) {
+                deletedIds.add(id);
+            }
+        }
+        checkpointAfter = flushCount;
+    }
+
+    /**
+     * Writes all pending changes and waits until they are written.
+     * <p>
+     * Must be called on the main thread.
+     *
+     * @return the {@link FlushResult} with the amounts of the changes, which this flush handed over
+     */
+    public @NonNull FlushResult flushNow() {
+        final @NonNull List<Round> submitted = submitAll();
+        int records = 0;
+        int deletions = 0;
+
+        lastWrite.join();
+
+        for (final @NonNull Round written : submitted) {
+            records += written.records.size();
+            deletions += written.deletions.size();
+        }
+        return new FlushResult(records, deletions);
+    }
+
+    /**
+     * Stops the periodic save rounds and writes all pending changes until the shutdown deadline.
+     * <p>
+     * First, the rounds which are already handed to the writer thread are awaited, so no
+     * older snapshot can overwrite a newer one. If they do not finish in time, nothing else is
+     * started and all changes, including those of the stalled rounds, are saved to the
+     * {@link ItemRecovery}. Otherwise, the changes are split by their ids across several
+     * connections, which write them in parallel. The changes of every part which
+     * is not written once the deadline passed, are saved to the ItemRecovery instead.
+     * <p>
+     * Before anything is saved to the ItemRecovery, all database work is aborted,
+     * so no write which missed the deadline can still commit afterwards.
+     * <p>
+     * Must be called on the main thread.
+     *
+     * @param recovery the ItemRecovery, which takes the changes that could not be written
+     * @param deadline the {@link System#nanoTime()} of the shutdown deadline
+     * @return the amount of changes which could not be written
+     */
+    public int close(final @NonNull ItemRecovery recovery, final long deadline) {
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+        final @NonNull Map<String, List<CompletableFuture<Void>>> closeWaiters = new HashMap<>(waiters);
+        final @NonNull List<Round> rounds = new ArrayList<>(unwrittenRounds);
+
+        if (round != null) {
+            round.snapshot(Long.MAX_VALUE);
+            rounds.add(round);
+            round = null;
+        }
+        waiters.clear();
+
+        final @NonNull Map<String, ItemRecord> records = new LinkedHashMap<>();
+        final @NonNull Set<String> deletions = new LinkedHashSet<>();
+
+        for (final @NonNull Round unwritten : rounds) {
+            unwritten.waiters.forEach((id, futures) -> closeWaiters.merge(id, futures, ItemWriteBehind::concat));
+
+            for (final @NonNull String id : unwritten.deletions) {
+                records.remove(id);
+                deletions.add(id);
+            }
+            for (final @NonNull ItemRecord record : unwritten.records) {
+                deletions.remove(record.id());
+                records.put(record.id(), record);
+            }
+        }
+        for (final @NonNull String id : deletedIds) {
+            records.remove(id);
+            deletions.add(id);
+        }
+        for (final @NonNull String id : dirtyIds) {
+            final @Nullable Item item = itemRegistry.getLoadedItem(id);
+
+            if (item != null) {
+                deletions.remove(id);
+                records.put(id, ItemRecord.of(item));
+            }
+        }
+        dirtyIds.clear();
+        deletedIds.clear();
+
+        if (records.isEmpty() && deletions.isEmpty()) {
+            release(closeWaiters, List.of());
+            return 0;
+        }
+        final long flush = ++flushCount;
+        final long sequence = journal != null ? journal.getSequence() : 0;
+        final boolean stalled = !await(lastWrite, deadline);
+        final int parts = stalled ? 1 : Math.min(shutdownParallelism, records.size() + deletions.size());
+        final @NonNull List<List<ItemRecord>> partRecords = new ArrayList<>(parts);
+        final @NonNull List<List<String>> partDeletions = new ArrayList<>(parts);
+
+        for (int i = 0; i < parts; i++) {
+            partRecords.add(new ArrayList<>());
+            partDeletions.add(new ArrayList<>());
+        }
+        for (final @NonNull String id : deletions) {
+            partDeletions.get(Math.floorMod(id.hashCode(), parts)).add(id);
+        }
+        for (final @NonNull ItemRecord record : records.values()) {
+            partRecords.get(Math.floorMod(record.id().hashCode(), parts)).add(record);
+        }
+        final @NonNull List<CompletableFuture<ItemStore.WriteResult>> writes = new ArrayList<>(parts);
+
+        if (stalled) {
+            skylands.getLogger().warning("The previous item writes did not finish in time, no further writes are started.");
+        } else {
+            for (int i = 0; i < parts; i++) {
+                final @NonNull List<ItemRecord> part = partRecords.get(i);
+                final @NonNull List<String> partDeleted = partDeletions.get(i);
+
+                try {
+                    writes.add(CompletableFuture.supplyAsync(() -> store(part, partDeleted), databaseManager.getExecutor()));
+                } catch (final @NonNull RejectedExecutionException e) {
+                    writes.add(CompletableFuture.failedFuture(e));
+                }
+            }
+            await(CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)), deadline);
+        }
+        if (stalled || writes.stream().anyMatch(write -> !write.isDone())) {
+            databaseManager.abort();
+        }
+        final @NonNull List<ItemRecord> unwrittenRecords = new ArrayList<>();
+        final @NonNull List<String> unwrittenDeletions = new ArrayList<>();
+        final @NonNull List<Long> revisions = new ArrayList<>(parts);
+        final @NonNull List<String> conflicts = new ArrayList<>();
+
+        for (int i = 0; i < parts; i++) {
+            final @Nullable CompletableFuture<ItemStore.WriteResult> write = i < writes.size() ? writes.get(i) : null;
+
+            if (write != null && write.isDone() && !write.isCompletedExceptionally()) {
+                revisions.add(write.join().revision());
+                conflicts.addAll(write.join().conflicts());
+                continue;
+            }
+            unwrittenRecords.addAll(partRecords.get(i));
+            unwrittenDeletions.addAll(partDeletions.get(i));
+        }
+        for (final @NonNull ItemRecord record : unwrittenRecords) {
+            fail(closeWaiters.remove(record.id()), UNWRITTEN_ON_SHUTDOWN);
+        }
+        for (final @NonNull String id : unwrittenDeletions) {
+            fail(closeWaiters.remove(id), UNWRITTEN_ON_SHUTDOWN);
+        }
+        release(closeWaiters, conflicts);
+
+        if (unwrittenRecords.isEmpty() && unwrittenDeletions.isEmpty()) {
+            revision = advanceRevision(revision, revisions);
+
+            if (journal != null && flush > checkpointAfter) {
+                journal.checkpointAsync(sequence);
+            }
+            return 0;
+        }
+        revision = -1;
+
+        final int unwritten = unwrittenRecords.size() + unwrittenDeletions.size();
+
+        try {
+            recovery.write(unwrittenRecords, unwrittenDeletions);
+
+            skylands.getLogger().warning(String.format(
+                    "%d item changes could not be written in time and were saved to the recovery file.",
+                    unwritten
+            ));
+        } catch (final @NonNull IOException e) {
+            skylands.getLogger().log(Level.SEVERE, String.format(
+                    "%d item changes could not be written in time and could not be saved to the recovery file.",
+                    unwritten
+            ), e);
+        }
+        return unwritten;
+    }
+
+    /**
+     * Waits until a {@link CompletableFuture} is done, but at most until a deadline.
+     *
+     * @param future   the CompletableFuture
+     * @param deadline the {@link System#nanoTime()}, until which is waited at most
+     * @return whether the CompletableFuture is done, regardless of its outcome
+     */
+    private static boolean await(final @NonNull CompletableFuture<?> future, final long deadline) {
+        try {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (final @NonNull TimeoutException | ExecutionException e) {
+            // The outcome is checked by the caller
+        } catch (final @NonNull InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return future.isDone();
+    }
+
+    /**
+     * Advances a known revision of the {@link ItemStore} by the revisions of several writes.
+     * <p>
+     * The revision stays known only if the writes advanced it by exactly one each,
+     * otherwise someone else wrote to the store in between.
+     *
+     * @param revision  the revision before the writes, or -1 if it is unknown
+     * @param revisions the revisions, which the store returned for the writes, in any order
+     * @return the revision after the writes, or -1 if it is unknown
+     */
+    static long advanceRevision(final long revision, final @NonNull List<Long> revisions) {
+        if (revision < 0) {
+            return -1;
+        }
+        final @NonNull List<Long> sorted = new ArrayList<>(revisions);
+
+        sorted.sort(null);
+
+        for (int i = 0; i < sorted.size(); i++) {
+            if (sorted.get(i) != revision + i + 1) {
+                return -1;
+            }
+        }
+        return revision + sorted.size();
+    }
+
+    /**
+     * Writes {@link ItemRecord}s and deletions to the {@link ItemStore}
+     * and follows the revision of the store.
+     *
+     * @param records   the ItemRecords which are to be upserted
+     * @param deletions the ids of the Items which are to be deleted
+     * @return the {@link ItemStore.WriteResult}
+     */
+    private ItemStore.@NonNull WriteResult write(final @NonNull List<ItemRecord> records, final @NonNull List<String> deletions) {
+        final ItemStore.@NonNull WriteResult result = store(records, deletions);
+
+        revision = advanceRevision(revision, List.of(result.revision()));
+
+        return result;
+    }
+
+    /**
+     * Encodes the item stacks of {@link ItemRecord}s and writes them and deletions to the {@link ItemStore},
+     * without touching the revision, so several of these writes may run in parallel.
+     * <p>
+     * Records and deletions, which conflict with a concurrent change of another server, are reported
+     * one by one and handed to the conflict handler, as the stored change wins. Deletions are
+     * written with the latest version known of their Items. The versions of all
+     * written Items are passed to the Items on the main thread afterwards.
+     *
+     * @param records   the ItemRecords which are to be upserted
+     * @param deletions the ids of the Items which are to be deleted
+     * @return the {@link ItemStore.WriteResult}
+     */
+    private ItemStore.@NonNull WriteResult store(final @NonNull List<ItemRecord> records, final @NonNull List<String> deletions) {
+        final long start = System.nanoTime();
+        final @NonNull List<ItemRecord> encoded = encode(records);
+        final @NonNull Map<String, Long> deletedVersions = new LinkedHashMap<>();
+
+        for (final @NonNull String id : deletions) {
+            deletedVersions.put(id, Math.max(
+                    this.deletedVersions.getOrDefault(id, 0L),
+                    writtenVersions.getOrDefault(id, 0L)
+            ));
+        }
+        final ItemStore.@NonNull WriteResult result = store.write(encoded, deletedVersions);
+        final @NonNull Map<String, Long> versions = new HashMap<>();
+
+        deletedVersions.forEach((id, version) -> {
+            this.deletedVersions.remove(id, version);
+
+            if (!result.conflicts().contains(id)) {
+                writtenVersions.remove(id);
+            }
+        });
+
+        for (final @NonNull ItemRecord record : encoded) {
+            if (!result.conflicts().contains(record.id())) {
+                versions.put(record.id(), record.version() + 1);
+            }
+        }
+        writtenVersions.putAll(versions);
+
+        for (final @NonNull String id : result.conflicts()) {
+            skylands.getLogger().warning(String.format(
+                    "The item %s was changed concurrently by another server, its local change was discarded.",
+                    id
+            ));
+        }
+        conflictCount.addAndGet(result.conflicts().size());
+
+        if (skylands.isEnabled()) {
+            Bukkit.getScheduler().runTask(skylands, () -> {
+                versions.forEach((id, version) -> {
+                    final @Nullable Item item = itemRegistry.getLoadedItem(id);
+
+                    if (item != null) {
+                        item.setVersion(Math.max(item.getVersion(), version));
+                    }
+                });
+                if (!result.conflicts().isEmpty() && conflictHandler != null) {
+                    conflictHandler.accept(result.conflicts());
+                }
+            });
+        }
+        skylands.getLogger().fine(String.format(
+                "Wrote %d item changes and %d deletions in %d ms.",
+                records.size(),
+                deletions.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        ));
+        return result;
+    }
+
+    /**
+     * Encodes the item stacks of {@link ItemRecord}s with the {@link ItemCodec}.
+     * <p>
+     * The version of every record is raised to the version of its last write, as later rounds
+     * may have taken their snapshots before the Item learned about the write of an earlier one.
+     *
+     * @param records the ItemRecords which are to be encoded
+     * @return the encoded ItemRecords
+     */
+    private @NonNull List<ItemRecord> encode(final @NonNull List<ItemRecord> records) {
+        final @NonNull List<ItemRecord> encoded = new ArrayList<>(records.size());
+
+        for (final @NonNull ItemRecord record : records) {
+            encoded.add(new ItemRecord(
+                    record.id(),
+                    record.type(),
+                    record.rarity(),
+                    codec.encode(record.itemStack()),
+                    record.stats(),
+                    Math.max(record.version(), writtenVersions.getOrDefault(record.id(), 0L))
+            ));
+        }
+        return encoded;
+    }
+
+    /**
+     * A save round, which takes snapshots of the Items it took over across several ticks.
+     */
+    private final class Round {
+
+        /**
+         * The ids of the Items, whose snapshots are not yet taken.
+         */
+        private final @NonNull Deque<String> ids;
+
+        /**
+         * The ids of the Items, which are to be deleted.
+         */
+        private final @NonNull List<String> deletions;
+
+        /**
+         * The ids of all Items, which the round took over.
+         */
+        private final @NonNull Set<String> changedIds;
+
+        /**
+         * The futures of callers, which wait for the write of the round, by the ids of the Items.
+         */
+        private final @NonNull Map<String, List<CompletableFuture<Void>>> waiters;
+
+        /**
+         * The taken {@link ItemRecord} snapshots.
+         */
+        private final @NonNull List<ItemRecord> records;
+
+        /**
+         * The number of the round.
+         */
+        private final long number;
+
+        /**
+         * The sequence number of the {@link ItemJournal}, up to which the round covers all entries.
+         */
+        private final long sequence;
+
+        /**
+         * The {@link System#nanoTime()} of the oldest change of the round, or 0 if it is unknown.
+         */
+        private final long oldestChangeAt;
+
+        /**
+         * The amount of Items, which the round took over.
+         */
+        private final int size;
+
+        /**
+         * The amount of ticks, in which the round took snapshots.
+         */
+        private int ticks;
+
+        /**
+         * The longest time in nanoseconds, which the round took snapshots in a single tick.
+         */
+        private long maxTickNanos;
+
+        /**
+         * Constructs a {@link Round}.
+         *
+         * @param ids            the ids of the dirty Items
+         * @param deletions      the ids of the deleted Items
+         * @param waiters        the futures of callers, which wait for the write of the round
+         * @param number         the number of the round
+         * @param sequence       the sequence number of the ItemJournal, up to which the round covers all entries
+         * @param oldestChangeAt the {@link System#nanoTime()} of the oldest change of the round
+         */
+        private Round(
+                final @NonNull Deque<String> ids,
+                final @NonNull List<String> deletions,
+                final @NonNull Map<String, List<CompletableFuture<Void>>> waiters,
+                final long number,
+                final long sequence,
+                final long oldestChangeAt
+        ) {
+            this.ids = ids;
+            this.deletions = deletions;
+            this.waiters = waiters;
+            this.changedIds = new HashSet<>(ids);
+            this.changedIds.addAll(deletions);
+            this.records = new ArrayList<>(ids.size());
+            this.number = number;
+            this.sequence = sequence;
+            this.oldestChangeAt = oldestChangeAt;
+            this.size = ids.size() + deletions.size();
+        }
+
+        /**
+         * Takes snapshots until all are taken or the budget is spent, but at least one.
+         * <p>
+         * Items, which were deleted in the meantime, are skipped. All other Items are pinned,
+         * so they are still loaded and no snapshot reads from the store.
+         *
+         * @param budget the time in nanoseconds, after which no further snapshot is taken
+         */
+        private void snapshot(final long budget) {
+            final long start = System.nanoTime();
+
+            while (!ids.isEmpty()) {
+                final @NonNull String id = ids.poll();
+
+                final @Nullable Item item = itemRegistry.getLoadedItem(id);
+
+                if (item != null) {
+                    records.add(ItemRecord.of(item));
+                }
+                if (System.nanoTime() - start >= budget) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The amounts of the changes, which a flush wrote.
+     *
+     * @param records   the amount of written {@link ItemRecord}s
+     * @param deletions the amount of written deletions
+     */
+    public record FlushResult(
+            int records,
+            int deletions
+    ) {
+    }
+
+    /**
+     * The progress and the lag of the save rounds.
+     *
+     * @param pending                the amount of changed Items, which no round took over yet
+     * @param roundRemaining         the amount of snapshots, which the current round still has to take
+     * @param roundSize              the amount of Items, which the current round took over
+     * @param lagMillis              the age of the oldest change, which is not yet handed to the writer
+     * @param pendingWrites          the amount of rounds, which are handed to the writer but not yet written
+     * @param lastRoundSize          the amount of Items of the last finished round
+     * @param lastRoundTicks         the amount of ticks, in which the last finished round took snapshots
+     * @param lastRoundMaxTickMillis the longest time in milliseconds, which the last round took in a single tick
+     * @param tickBudgetMillis       the configured time in milliseconds per tick
+     * @param degraded               whether the database is unreachable and all changes are only buffered
+     * @param conflicts              the amount of local changes, which were discarded because of concurrent changes
+     */
+    public record Status(
+            int pending,
+            int roundRemaining,
+            int roundSize,
+            long lagMillis,
+            int pendingWrites,
+            int lastRoundSize,
+            int lastRoundTicks,
+            double lastRoundMaxTickMillis,
+            double tickBudgetMillis,
+            boolean degraded,
+            long conflicts
+    ) {
+    }
+}
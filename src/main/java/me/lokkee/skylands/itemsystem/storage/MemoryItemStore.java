@@ -0,0 +1,226 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An {@link ItemStore}, which only keeps the {@link ItemRecord}s in memory.
+ * <p>
+ * Nothing is persisted across restarts, which makes it useful
+ * for local testing and benchmarks without any database.
+ */
+public final class MemoryItemStore implements ItemStore {
+
+    /**
+     * All stored {@link ItemRecord}s by their id, in the order they were first written.
+     */
+    private final @NonNull Map<String, ItemRecord> records = new LinkedHashMap<>();
+
+    /**
+     * All stored compression dictionaries by their id.
+     */
+    private final @NonNull Map<Integer, byte[]> dictionaries = new LinkedHashMap<>();
+
+    /**
+     * The revision of the store, which is incremented by every write.
+     */
+    private long revision;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void open() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadItems(final @NonNull Consumer<ItemRecord> consumer) {
+        final @NonNull List<ItemRecord> snapshot;
+
+        synchronized (records) {
+            snapshot = new ArrayList<>(records.values());
+        }
+        snapshot.forEach(consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadIds(final @NonNull IdConsumer consumer) {
+        final @NonNull List<ItemRecord> snapshot;
+
+        synchronized (records) {
+            snapshot = new ArrayList<>(records.values());
+        }
+        for (final @NonNull ItemRecord record : snapshot) {
+            consumer.accept(record.id(), record.type(), record.rarity());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRevision() {
+        synchronized (records) {
+            return revision;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull List<ItemRecord> readItems(final @NonNull Collection<String> ids) {
+        final @NonNull List<ItemRecord> found = new ArrayList<>(ids.size());
+
+        synchronized (records) {
+            for (final @NonNull String id : ids) {
+                final @Nullable ItemRecord record = records.get(id);
+
+                if (record != null) {
+                    found.add(record);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull WriteResult write(final @NonNull List<ItemRecord> records, final @NonNull Map<String, Long> deletions) {
+        final @NonNull List<String> conflicts = new ArrayList<>();
+
+        synchronized (this.records) {
+            deletions.forEach((id, version) -> {
+                final @Nullable ItemRecord stored = this.records.get(id);
+
+                if (stored == null) {
+                    return;
+                }
+                if (stored.version() != version) {
+                    conflicts.add(id);
+                    return;
+                }
+                this.records.remove(id);
+            });
+            for (final @NonNull ItemRecord record : records) {
+                final @Nullable ItemRecord stored = this.records.get(record.id());
+
+                if ((stored != null ? stored.version() : 0) != record.version()) {
+                    conflicts.add(record.id());
+                    continue;
+                }
+                this.records.put(record.id(), new ItemRecord(
+                        record.id(),
+                        record.type(),
+                        record.rarity(),
+                        record.itemStack(),
+                        record.stats(),
+                        record.version() + 1
+                ));
+            }
+            return new WriteResult(++revision, conflicts);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull Map<String, Long> importItems(final @NonNull List<ItemRecord> records) {
+        final @NonNull Map<String, Long> versions = new HashMap<>();
+
+        synchronized (this.records) {
+            for (final @NonNull ItemRecord record : records) {
+                final @Nullable ItemRecord stored = this.records.get(record.id());
+                final long version = stored != null ? stored.version() + 1 : 1;
+
+                this.records.put(record.id(), new ItemRecord(
+                        record.id(),
+                        record.type(),
+                        record.rarity(),
+                        record.itemStack(),
+                        record.stats(),
+                        version
+                ));
+                versions.put(record.id(), version);
+            }
+            revision++;
+        }
+        return versions;
+    }
+
+    /**
+     * Gets the sequence of the latest change, which is always 0, as no other server shares the memory.
+     *
+     * @return 0
+     */
+    @Override
+    public long getChangeSequence() {
+        return 0;
+    }
+
+    /**
+     * Gets the sequence of the oldest change, which is always 0, as no other server shares the memory.
+     *
+     * @return 0
+     */
+    @Override
+    public long getOldestChangeSequence() {
+        return 0;
+    }
+
+    /**
+     * Reads no changes, as no other server shares the memory.
+     *
+     * @param sequence the sequence of the last read change
+     * @param limit    the maximum amount of changes which are read
+     * @return empty {@link ItemChanges}
+     */
+    @Override
+    public @NonNull ItemChanges readChanges(final long sequence, final int limit) {
+        return new ItemChanges(sequence, List.of(), List.of());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void pruneChanges(final long retentionMillis) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull List<byte[]> loadDictionaries() {
+        synchronized (dictionaries) {
+            return new ArrayList<>(dictionaries.values());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveDictionary(final int id, final byte @NonNull [] dictionary) {
+        synchronized (dictionaries) {
+            dictionaries.putIfAbsent(id, dictionary);
+        }
+    }
+}
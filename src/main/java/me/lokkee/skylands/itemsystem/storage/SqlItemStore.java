@@ -0,0 +1,765 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.Skylands;
+import me.lokkee.skylands.core.Rarity;
+import me.lokkee.skylands.core.database.DatabaseManager;
+import me.lokkee.skylands.core.database.DatabaseType;
+import me.lokkee.skylands.core.database.SchemaMigrator;
+import me.lokkee.skylands.itemsystem.ItemType;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * An {@link ItemStore}, which stores all {@link ItemRecord}s in the SQL database of the {@link DatabaseManager}.
+ * <p>
+ * It is used for both the MySQL server and the embedded H2 database,
+ * which runs in its MySQL mode and understands the same SQL.
+ */
+public final class SqlItemStore implements ItemStore {
+
+    /**
+     * The main plugin instance of {@link Skylands}.
+     */
+    private final @NonNull Skylands skylands;
+
+    /**
+     * The main {@link DatabaseManager} instance.
+     */
+    private final @NonNull DatabaseManager databaseManager;
+
+    /**
+     * The amount of rows which are fetched at once while loading.
+     */
+    private final int fetchSize;
+
+    /**
+     * The amount of rows which are sent to the database in one batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The time in seconds, which a single statement of a write may take, or 0 if it is unlimited.
+     */
+    private final int queryTimeout;
+
+    /**
+     * Whether every write is recorded in the item_changes feed for the other servers.
+     */
+    private final boolean changeFeed;
+
+    /**
+     * The random id of this server in the item_changes feed, which tells its own changes apart.
+     */
+    private final @NonNull String origin = UUID.randomUUID().toString();
+
+    /**
+     * Constructs the {@link SqlItemStore}.
+     *
+     * @param skylands        the main plugin instance of {@link Skylands}
+     * @param databaseManager the main {@link DatabaseManager} instance
+     */
+    public SqlItemStore(
+            final @NonNull Skylands skylands,
+            final @NonNull DatabaseManager databaseManager
+    ) {
+        this.skylands = skylands;
+        this.databaseManager = databaseManager;
+
+        fetchSize = Math.max(1, skylands.getConfig().getInt("items.load.fetch-size", 1000));
+        batchSize = Math.max(1, skylands.getConfig().getInt("items.save.batch-size", 500));
+        queryTimeout = Math.max(0, skylands.getConfig().getInt("items.save.query-timeout", 30));
+        changeFeed = skylands.getConfig().getBoolean("items.sync.enabled", false);
+    }
+
+    /**
+     * Applies all {@link ItemSchema} migrations.
+     * <p>
+     * On MySQL, the conversion of legacy {@link java.util.Base64} item stacks is then started
+     * in the background. The embedded database never contained any.
+     */
+    @Override
+    public void open() {
+        new SchemaMigrator(skylands, databaseManager).migrate(ItemSchema.MIGRATIONS);
+
+        if (databaseManager.getType() == DatabaseType.MYSQL) {
+            new ItemStackMigration(skylands, databaseManager).convertRowsAsync();
+        }
+    }
+
+    /**
+     * Reads all stored {@link ItemRecord}s.
+     * <p>
+     * Every item is read with its packed stats from a single row, in one streamed query.
+     * <p>
+     * The rows are read from the read replica, once it reached the current revision of the primary.
+     * The outcome of the query is recorded in the {@link me.lokkee.skylands.core.database.CircuitBreaker}.
+     *
+     * @param consumer the {@link Consumer}, which is called with every ItemRecord as soon as it is read
+     */
+    @Override
+    public void loadItems(final @NonNull Consumer<ItemRecord> consumer) {
+        final long revision = getRevision();
+
+        try (final @NonNull Connection connection =
+                     databaseManager.getReadConnection(replica -> readRevision(replica) >= revision)
+        ) {
+            try (final @NonNull PreparedStatement ps =
+                         connection.prepareStatement(
+                                 "SELECT id, type, rarity, itemstack, stats, version FROM item_data",
+                                 ResultSet.TYPE_FORWARD_ONLY,
+                                 ResultSet.CONCUR_READ_ONLY
+                         )
+            ) {
+                ps.setFetchSize(fetchSize);
+
+                try (final @NonNull ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(readRecord(rs));
+                    }
+                }
+                databaseManager.getCircuitBreaker().recordSuccess();
+            } catch (final @NonNull SQLException e) {
+                databaseManager.getCircuitBreaker().recordFailure(e);
+                throw e;
+            }
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads the ids, types and rarities of all rows of the item_data table, preferably from the read replica.
+     *
+     * @param consumer the {@link IdConsumer}, which is called with every id as soon as it is read
+     */
+    @Override
+    public void loadIds(final @NonNull IdConsumer consumer) {
+        final long revision = getRevision();
+
+        try (final @NonNull Connection connection =
+                     databaseManager.getReadConnection(replica -> readRevision(replica) >= revision);
+             final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "SELECT id, type, rarity FROM item_data",
+                             ResultSet.TYPE_FORWARD_ONLY,
+                             ResultSet.CONCUR_READ_ONLY
+                     )
+        ) {
+            ps.setFetchSize(fetchSize);
+
+            try (final @NonNull ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(
+                            rs.getString("id"),
+                            ItemType.valueOf(rs.getString("type")),
+                            Rarity.valueOf(rs.getString("rarity"))
+                    );
+                }
+            }
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Gets the revision of the item tables from the item_revision table.
+     *
+     * @return the current revision
+     */
+    @Override
+    public long getRevision() {
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection()) {
+            return readRevision(connection);
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes {@link ItemRecord}s and deletions to the database.
+     * <p>
+     * Every item is written as a single row together with its packed stats, by an update,
+     * which only matches the version of its record and increments it. Items which were never
+     * stored are inserted instead, unless another server inserted them meanwhile. Every other
+     * record without a matching row is a conflict, as the Item was changed or deleted concurrently.
+     * Likewise, a deletion only matches the version of its Item, and it is a conflict,
+     * if the Item is still stored with another version.
+     * All rows are written over a single {@link Connection} in one transaction
+     * and are being sent in batches of the configured batch size.
+     * The revision is incremented in the same transaction.
+     * <p>
+     * If the change feed is enabled, every written Item is recorded in it, after the revision
+     * was incremented. The lock on the revision row is held until the commit, so the
+     * sequences of the changes are allocated in the order the transactions commit.
+     * <p>
+     * Every statement is limited to the configured query timeout, and the outcome of the write
+     * is recorded in the {@link me.lokkee.skylands.core.database.CircuitBreaker}, so stalled
+     * statements open the circuit just like unreachable connections.
+     *
+     * @param records   the ItemRecords which are to be upserted
+     * @param deletions the versions of the Items which are to be deleted by their ids
+     * @return the {@link WriteResult}
+     */
+    @Override
+    public @NonNull WriteResult write(final @NonNull List<ItemRecord> records, final @NonNull Map<String, Long> deletions) {
+        final @NonNull List<String> conflicts = new ArrayList<>();
+
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection()) {
+            connection.setAutoCommit(false);
+
+            try (final @NonNull PreparedStatement updatePs =
+                         connection.prepareStatement(
+                                 "UPDATE item_data SET type = ?, rarity = ?, itemstack = ?, stats = ?, version = version + 1 "
+                                         + "WHERE id = ? AND version = ?"
+                         );
+                 final @NonNull PreparedStatement insertPs =
+                         connection.prepareStatement(
+                                 "INSERT IGNORE INTO item_data (id, type, rarity, itemstack, stats, version) VALUES(?, ?, ?, ?, ?, ?)"
+                         );
+                 final @NonNull PreparedStatement deleteItemPs =
+                         connection.prepareStatement(
+                                 "DELETE FROM item_data WHERE id = ? AND version = ?"
+                         );
+                 final @NonNull PreparedStatement existsPs =
+                         connection.prepareStatement(
+                                 "SELECT 1 FROM item_data WHERE id = ?"
+                         );
+                 final @NonNull PreparedStatement revisionPs =
+                         connection.prepareStatement(
+                                 "UPDATE item_revision SET revision = revision + 1 WHERE id = 1"
+                         );
+                 final @NonNull PreparedStatement changePs =
+                         connection.prepareStatement(
+                                 "INSERT INTO item_changes (id, operation, origin) VALUES(?, ?, ?)"
+                         )
+            ) {
+                for (final @NonNull PreparedStatement ps : List.of(updatePs, insertPs, deleteItemPs, existsPs, revisionPs, changePs)) {
+                    ps.setQueryTimeout(queryTimeout);
+                }
+                final @NonNull Batch updateBatch = new Batch(updatePs);
+                final @NonNull Batch deleteItemBatch = new Batch(deleteItemPs);
+
+                final @NonNull List<String> deletedIds = new ArrayList<>(deletions.keySet());
+
+                for (final @NonNull String id : deletedIds) {
+                    deleteItemPs.setString(1, id);
+                    deleteItemPs.setLong(2, deletions.get(id));
+                    deleteItemBatch.add();
+                }
+                deleteItemBatch.execute();
+
+                final int @NonNull [] deleted = deleteItemBatch.getCounts();
+
+                for (int i = 0; i < deletedIds.size(); i++) {
+                    if (deleted[i] != 0) {
+                        continue;
+                    }
+                    existsPs.setString(1, deletedIds.get(i));
+
+                    try (final @NonNull ResultSet rs = existsPs.executeQuery()) {
+                        if (rs.next()) {
+                            conflicts.add(deletedIds.get(i));
+                        }
+                    }
+                }
+
+                for (final @NonNull ItemRecord record : records) {
+                    updatePs.setString(1, record.type().toString());
+                    updatePs.setString(2, record.rarity().toString());
+                    updatePs.setBytes(3, record.itemStack());
+                    updatePs.setBytes(4, ItemStatPacking.pack(record.stats()));
+                    updatePs.setString(5, record.id());
+                    updatePs.setLong(6, record.version());
+                    updateBatch.add();
+                }
+                updateBatch.execute();
+
+                final int @NonNull [] updated = updateBatch.getCounts();
+
+                for (int i = 0; i < records.size(); i++) {
+                    if (updated[i] != 0) {
+                        continue;
+                    }
+                    final @NonNull ItemRecord record = records.get(i);
+
+                    if (record.version() > 0) {
+                        conflicts.add(record.id());
+                        continue;
+                    }
+
+                    insertPs.setString(1, record.id());
+                    insertPs.setString(2, record.type().toString());
+                    insertPs.setString(3, record.rarity().toString());
+                    insertPs.setBytes(4, record.itemStack());
+                    insertPs.setBytes(5, ItemStatPacking.pack(record.stats()));
+                    insertPs.setLong(6, record.version() + 1);
+
+                    if (insertPs.executeUpdate() == 0) {
+                        conflicts.add(record.id());
+                    }
+                }
+
+                revisionPs.executeUpdate();
+
+                if (changeFeed) {
+                    final @NonNull Batch changeBatch = new Batch(changePs);
+
+                    for (final @NonNull String id : deletedIds) {
+                        if (conflicts.contains(id)) {
+                            continue;
+                        }
+                        changePs.setString(1, id);
+                        changePs.setString(2, "DELETE");
+                        changePs.setString(3, origin);
+                        changeBatch.add();
+                    }
+                    for (final @NonNull ItemRecord record : records) {
+                        if (conflicts.contains(record.id())) {
+                            continue;
+                        }
+                        changePs.setString(1, record.id());
+                        changePs.setString(2, "UPSERT");
+                        changePs.setString(3, origin);
+                        changeBatch.add();
+                    }
+                    changeBatch.execute();
+                }
+                final long revision = readRevision(connection);
+
+                connection.commit();
+                databaseManager.getCircuitBreaker().recordSuccess();
+
+                return new WriteResult(revision, conflicts);
+            } catch (final @NonNull SQLException e) {
+                databaseManager.getCircuitBreaker().recordFailure(e);
+                connection.rollback();
+                throw e;
+            }
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Upserts imported rows into the item_data table in batches and increments their versions,
+     * all in one transaction. With the change feed, every row is recorded as change as well.
+     *
+     * @param records the ItemRecords which are to be upserted
+     * @return the versions of the written Items after the import by their id
+     */
+    @Override
+    public @NonNull Map<String, Long> importItems(final @NonNull List<ItemRecord> records) {
+        if (records.isEmpty()) {
+            return Map.of();
+        }
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection()) {
+            connection.setAutoCommit(false);
+
+            try (final @NonNull PreparedStatement upsertPs =
+                         connection.prepareStatement(
+                                 "INSERT INTO item_data (id, type, rarity, itemstack, stats, version) VALUES(?, ?, ?, ?, ?, 1) "
+                                         + "ON DUPLICATE KEY UPDATE type = VALUES(type), rarity = VALUES(rarity), "
+                                         + "itemstack = VALUES(itemstack), stats = VALUES(stats), version = version + 1"
+                         );
+                 final @NonNull PreparedStatement revisionPs =
+                         connection.prepareStatement(
+                                 "UPDATE item_revision SET revision = revision + 1 WHERE id = 1"
+                         );
+                 final @NonNull PreparedStatement changePs =
+                         connection.prepareStatement(
+                                 "INSERT INTO item_changes (id, operation, origin) VALUES(?, ?, ?)"
+                         );
+                 final @NonNull PreparedStatement versionPs =
+                         connection.prepareStatement(
+                                 "SELECT id, version FROM item_data WHERE id IN ("
+                                         + String.join(", ", Collections.nCopies(records.size(), "?")) + ")"
+                         )
+            ) {
+                final @NonNull Batch upsertBatch = new Batch(upsertPs);
+
+                for (final @NonNull ItemRecord record : records) {
+                    upsertPs.setString(1, record.id());
+                    upsertPs.setString(2, record.type().toString());
+                    upsertPs.setString(3, record.rarity().toString());
+                    upsertPs.setBytes(4, record.itemStack());
+                    upsertPs.setBytes(5, ItemStatPacking.pack(record.stats()));
+                    upsertBatch.add();
+                }
+                upsertBatch.execute();
+                revisionPs.executeUpdate();
+
+                if (changeFeed) {
+                    final @NonNull Batch changeBatch = new Batch(changePs);
+
+                    for (final @NonNull ItemRecord record : records) {
+                        changePs.setString(1, record.id());
+                        changePs.setString(2, "UPSERT");
+                        changePs.setString(3, origin);
+                        changeBatch.add();
+                    }
+                    changeBatch.execute();
+                }
+                final @NonNull Map<String, Long> versions = new HashMap<>();
+
+                for (int i = 0; i < records.size(); i++) {
+                    versionPs.setString(i + 1, records.get(i).id());
+                }
+                try (final @NonNull ResultSet rs = versionPs.executeQuery()) {
+                    while (rs.next()) {
+                        versions.put(rs.getString("id"), rs.getLong("version"));
+                    }
+                }
+                connection.commit();
+                return versions;
+            } catch (final @NonNull SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Gets the sequence of the latest change in the item_changes feed.
+     *
+     * @return the latest sequence, or 0 if there is none
+     */
+    @Override
+    public long getChangeSequence() {
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection();
+             final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "SELECT MAX(seq) AS seq FROM item_changes"
+                     );
+             final @NonNull ResultSet rs = ps.executeQuery()
+        ) {
+            return rs.next() ? rs.getLong("seq") : 0;
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getOldestChangeSequence() {
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection();
+             final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "SELECT MIN(seq) AS seq FROM item_changes"
+                     );
+             final @NonNull ResultSet rs = ps.executeQuery()
+        ) {
+            return rs.next() ? rs.getLong("seq") : 0;
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads the changes of other servers from the item_changes feed and
+     * reads the current rows of all changed Items in one query.
+     * <p>
+     * Changed Items without a row were deleted.
+     *
+     * @param sequence the sequence of the last read change
+     * @param limit    the maximum amount of changes which are read
+     * @return the {@link ItemChanges}
+     */
+    @Override
+    public @NonNull ItemChanges readChanges(final long sequence, final int limit) {
+        final @NonNull Set<String> ids = new LinkedHashSet<>();
+        long last = sequence;
+
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection()) {
+            try (final @NonNull PreparedStatement ps =
+                         connection.prepareStatement(
+                                 "SELECT seq, id, origin FROM item_changes WHERE seq > ? ORDER BY seq LIMIT ?"
+                         )
+            ) {
+                ps.setLong(1, sequence);
+                ps.setInt(2, limit);
+
+                try (final @NonNull ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        last = rs.getLong("seq");
+
+                        if (!origin.equals(rs.getString("origin"))) {
+                            ids.add(rs.getString("id"));
+                        }
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                return new ItemChanges(last, List.of(), List.of());
+            }
+            final @NonNull List<ItemRecord> records = readItems(connection, ids);
+
+            for (final @NonNull ItemRecord record : records) {
+                ids.remove(record.id());
+            }
+            return new ItemChanges(last, records, new ArrayList<>(ids));
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads the current rows of some Items in one query.
+     *
+     * @param ids the ids of the Items
+     * @return the ItemRecords of all Items, which are stored
+     */
+    @Override
+    public @NonNull List<ItemRecord> readItems(final @NonNull Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection()) {
+            return readItems(connection, ids);
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Removes all changes from the item_changes feed, which are older than a retention
+     * by the clock of the database, so the clocks of the servers do not matter.
+     * <p>
+     * The latest change is always kept, so {@link #getOldestChangeSequence()} can tell
+     * whether a reader missed any changes.
+     *
+     * @param retentionMillis the time in milliseconds, for which changes are kept
+     */
+    @Override
+    public void pruneChanges(final long retentionMillis) {
+        final long latest = getChangeSequence();
+
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection();
+             final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "DELETE FROM item_changes WHERE created_at < TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP(3)) "
+                                     + "AND seq < ?"
+                     )
+        ) {
+            ps.setLong(1, -retentionMillis / 1000);
+            ps.setLong(2, latest);
+            ps.executeUpdate();
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull List<byte[]> loadDictionaries() {
+        final @NonNull List<byte[]> dictionaries = new ArrayList<>();
+
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection();
+             final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "SELECT data FROM item_dictionary ORDER BY created_at"
+                     );
+             final @NonNull ResultSet rs = ps.executeQuery()
+        ) {
+            while (rs.next()) {
+                dictionaries.add(rs.getBytes("data"));
+            }
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return dictionaries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveDictionary(final int id, final byte @NonNull [] dictionary) {
+        try (final @NonNull Connection connection = databaseManager.getWriteConnection();
+             final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "INSERT IGNORE INTO item_dictionary (id, data) VALUES(?, ?)"
+                     )
+        ) {
+            ps.setInt(1, id);
+            ps.setBytes(2, dictionary);
+            ps.executeUpdate();
+        } catch (final @NonNull SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads the current rows of some Items in one query.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param ids        the ids of the Items, which must not be empty
+     * @return the ItemRecords of all Items, which are stored
+     */
+    private static @NonNull List<ItemRecord> readItems(
+            final @NonNull Connection connection,
+            final @NonNull Collection<String> ids
+    ) throws SQLException {
+        final @NonNull List<ItemRecord> records = new ArrayList<>(ids.size());
+
+        try (final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "SELECT id, type, rarity, itemstack, stats, version FROM item_data WHERE id IN ("
+                                     + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")"
+                     )
+        ) {
+            int index = 0;
+
+            for (final @NonNull String id : ids) {
+                ps.setString(++index, id);
+            }
+            try (final @NonNull ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(readRecord(rs));
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads the {@link ItemRecord} of an item_data row.
+     *
+     * <p>
+     * The stats of all rows are packed by the schema migrations, so a missing packing means no stats.
+     *
+     * @param rs the {@link ResultSet} which is positioned on the row
+     * @return the ItemRecord
+     */
+    private static @NonNull ItemRecord readRecord(final @NonNull ResultSet rs) throws SQLException {
+        final byte[] packed = rs.getBytes("stats");
+
+        return new ItemRecord(
+                rs.getString("id"),
+                ItemType.valueOf(rs.getString("type")),
+                Rarity.valueOf(rs.getString("rarity")),
+                readBytes(rs, "itemstack"),
+                packed != null ? ItemStatPacking.unpack(packed) : Map.of(),
+                rs.getLong("version")
+        );
+    }
+
+    /**
+     * Reads the revision of the item tables.
+     *
+     * @param connection the {@link Connection} to the database
+     * @return the current revision, or 0 if there is none
+     */
+    private static long readRevision(final @NonNull Connection connection) throws SQLException {
+        try (final @NonNull PreparedStatement ps =
+                     connection.prepareStatement(
+                             "SELECT revision FROM item_revision WHERE id = 1"
+                     );
+             final @NonNull ResultSet rs = ps.executeQuery()
+        ) {
+            return rs.next() ? rs.getLong("revision") : 0;
+        }
+    }
+
+    /**
+     * Reads the bytes of a binary column by streaming them from the {@link ResultSet}.
+     *
+     * @param rs     the ResultSet which is positioned on the row
+     * @param column the name of the binary column
+     * @return the bytes of the column
+     */
+    private static byte @NonNull [] readBytes(final @NonNull ResultSet rs, final @NonNull String column) throws SQLException {
+        try (final @NonNull InputStream in = rs.getBinaryStream(column)) {
+            return in.readAllBytes();
+        } catch (final @NonNull IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    /**
+     * A JDBC batch of a {@link PreparedStatement},
+     * which is being sent once it reached the batch size.
+     */
+    private final class Batch {
+
+        /**
+         * The PreparedStatement of the batch.
+         */
+        private final @NonNull PreparedStatement ps;
+
+        /**
+         * The amount of rows which are added but not yet sent.
+         */
+        private int pending;
+
+        /**
+         * The update counts of all sent rows, in the order they were added.
+         */
+        private int @NonNull [] counts = new int[0];
+
+        /**
+         * Constructs a {@link Batch}.
+         *
+         * @param ps the PreparedStatement of the batch
+         */
+        private Batch(final @NonNull PreparedStatement ps) {
+            this.ps = ps;
+        }
+
+        /**
+         * Adds the current parameters of the {@link PreparedStatement} to the batch.
+         */
+        private void add() throws SQLException {
+            ps.addBatch();
+
+            if (++pending == batchSize) {
+                execute();
+            }
+        }
+
+        /**
+         * Sends all remaining rows of the batch to the database.
+         */
+        private void execute() throws SQLException {
+            if (pending > 0) {
+                final int @NonNull [] sent = ps.executeBatch();
+                final int offset = counts.length;
+
+                counts = Arrays.copyOf(counts, offset + sent.length);
+                System.arraycopy(sent, 0, counts, offset, sent.length);
+                pending = 0;
+            }
+        }
+
+        /**
+         * Gets the update counts of all sent rows.
+         *
+         * @return the update counts, in the order the rows were added
+         */
+        private int @NonNull [] getCounts() {
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+/**
+ * Thrown if a stored payload was encoded with a compression dictionary,
+ * which the {@link ItemCodec} does not know.
+ * <p>
+ * This happens, if another server trained the dictionary after the dictionaries were loaded.
+ */
+public final class UnknownDictionaryException extends IllegalStateException {
+
+    /**
+     * The id of the unknown dictionary.
+     */
+    private final int dictionaryId;
+
+    /**
+     * Constructs an {@link UnknownDictionaryException}.
+     *
+     * @param dictionaryId the id of the unknown dictionary
+     */
+    public UnknownDictionaryException(final int dictionaryId) {
+        super("Unknown dictionary " + dictionaryId);
+        this.dictionaryId = dictionaryId;
+    }
+
+    /**
+     * Gets the id of the unknown dictionary.
+     *
+     * @return the id of the dictionary
+     */
+    public int getDictionaryId() {
+        return dictionaryId;
+    }
+}
@@ -0,0 +1,146 @@
+package me.lokkee.skylands.itemsystem;
+
+import me.lokkee.skylands.core.Rarity;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests how the {@link ItemCache} loads, keeps and evicts {@link Item}s.
+ */
+final class ItemCacheTest {
+
+    /**
+     * Tests that a load does not hold the lock of the cache, so other threads can use it meanwhile.
+     */
+    @Test
+    void loadDoesNotBlockCache() {
+        final @NonNull ItemCache[] self = new ItemCache[1];
+        final @NonNull Thread[] reader = new Thread[1];
+
+        self[0] = new ItemCache(10, 10, ids -> {
+            reader[0] = new Thread(() -> self[0].getLoaded("sword"));
+            reader[0].start();
+
+            try {
+                reader[0].join(5000);
+            } catch (final @NonNull InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return stored(ids);
+        }, id -> false);
+
+        assertEquals(1, self[0].getAll(List.of("sword")).size());
+        assertFalse(reader[0].isAlive(), "The load holds the lock of the cache.");
+    }
+
+    /**
+     * Tests that an Item, which was put while it was being loaded, is found instead of the loaded one.
+     */
+    @Test
+    void putDuringLoadWins() {
+        final @NonNull Item created = item("sword");
+        final @NonNull ItemCache[] self = new ItemCache[1];
+
+        self[0] = new ItemCache(10, 10, ids -> {
+            self[0].put(created);
+            return stored(ids);
+        }, id -> false);
+
+        assertSame(created, self[0].getAll(List.of("sword")).get(0));
+        assertSame(created, self[0].getLoaded("sword"));
+    }
+
+    /**
+     * Tests that an Item, which was removed while it was being loaded, is neither returned nor kept.
+     */
+    @Test
+    void removeDuringLoadDrops() {
+        final @NonNull ItemCache[] self = new ItemCache[1];
+
+        self[0] = new ItemCache(10, 10, ids -> {
+            self[0].remove("sword");
+            return stored(ids);
+        }, id -> false);
+
+        assertTrue(self[0].getAll(List.of("sword")).isEmpty());
+        assertNull(self[0].getLoaded("sword"));
+    }
+
+    /**
+     * Tests that an Item, which was put and evicted again while it was being loaded, is loaded again,
+     * as the first load may predate its write.
+     */
+    @Test
+    void evictedDuringLoadIsLoadedAgain() {
+        final @NonNull List<Collection<String>> loads = new ArrayList<>();
+        final @NonNull ItemCache[] self = new ItemCache[1];
+
+        self[0] = new ItemCache(1, 10, ids -> {
+            loads.add(List.copyOf(ids));
+
+            if (loads.size() == 1) {
+                self[0].put(item("sword"));
+                self[0].put(item("shield"));
+            }
+            return stored(ids);
+        }, id -> false);
+
+        assertEquals(1, self[0].getAll(List.of("sword")).size());
+        assertEquals(List.of(List.of("sword"), List.of("sword")), loads);
+    }
+
+    /**
+     * Tests that loads exceed the capacity until the cache is trimmed,
+     * which then evicts the least recently used Items that are not pinned.
+     */
+    @Test
+    void trimEvictsUnpinned() {
+        final @NonNull Set<String> pinned = Set.of("a");
+        final @NonNull ItemCache cache = new ItemCache(2, 2, ItemCacheTest::stored, pinned::contains);
+
+        assertEquals(4, cache.getAll(List.of("a", "b", "c", "d")).size());
+        assertEquals(4, cache.getLoaded().size());
+
+        cache.trim();
+
+        assertEquals(List.of("a", "d"), cache.getLoaded().stream().map(Item::getId).toList());
+        assertEquals(2, cache.getStatistics(4).loads());
+        assertEquals(2, cache.getStatistics(4).evictions());
+    }
+
+    /**
+     * Gets the stored Items of some ids, as the loader of the cache would.
+     *
+     * @param ids the ids of the Items
+     * @return the Items
+     */
+    private static @NonNull List<Item> stored(final @NonNull Collection<String> ids) {
+        final @NonNull List<Item> items = new ArrayList<>(ids.size());
+
+        for (final @NonNull String id : ids) {
+            items.add(item(id));
+        }
+        return items;
+    }
+
+    /**
+     * Creates an {@link Item}.
+     *
+     * @param id the id of the Item
+     * @return the Item
+     */
+    private static @NonNull Item item(final @NonNull String id) {
+        return new Item(id, ItemType.MELEE_WEAPON, Rarity.COMMON, LazyItemStack.ofBytes(new byte[]{1, 2, 3}, false));
+    }
+}
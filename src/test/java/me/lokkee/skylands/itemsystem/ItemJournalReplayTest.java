@@ -0,0 +1,160 @@
+package me.lokkee.skylands.itemsystem;
+
+import me.lokkee.skylands.core.Rarity;
+import me.lokkee.skylands.itemsystem.storage.ItemJournal;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the replay of the {@link ItemJournal} into the {@link ItemRegistry} by the {@link ItemJournalReplay}.
+ */
+final class ItemJournalReplayTest {
+
+    /**
+     * The serialized bytes of an item stack, which are never deserialized in the lazy mode.
+     */
+    private static final byte @NonNull [] ITEM_STACK = {1, 2, 3};
+
+    /**
+     * The folder of the journal file.
+     */
+    @TempDir
+    Path folder;
+
+    /**
+     * The ids, which the replay marked as dirty.
+     */
+    private final @NonNull Set<String> dirtyIds = new LinkedHashSet<>();
+
+    /**
+     * The ids, which the replay marked as deleted.
+     */
+    private final @NonNull Set<String> deletedIds = new LinkedHashSet<>();
+
+    /**
+     * Tests that a creation and a following edit of an Item, whose creation was already written
+     * before the crash, keep the version of the stored Item, so the next write does not conflict.
+     */
+    @Test
+    void createThenEditKeepsStoredVersion() throws IOException {
+        final @NonNull ItemJournal journal = openJournal();
+
+        journal.appendCreate("sword", ItemType.MELEE_WEAPON, Rarity.RARE, ITEM_STACK);
+        journal.appendStat("sword", ItemStat.ATTACK_DAMAGE, 12);
+        journal.appendRarity("sword", Rarity.EPIC);
+        journal.close();
+
+        final @NonNull ItemRegistry itemRegistry = new ItemRegistry();
+        final @NonNull Item stored = new Item("sword", ItemType.MELEE_WEAPON, Rarity.RARE, LazyItemStack.ofBytes(ITEM_STACK, false));
+
+        stored.setVersion(5);
+        itemRegistry.registerItem(stored);
+
+        assertEquals(3, replay(itemRegistry));
+
+        final @NonNull Item item = Objects.requireNonNull(itemRegistry.getItemFromId("sword"));
+
+        assertEquals(5, item.getVersion());
+        assertEquals(Rarity.EPIC, item.getRarity());
+        assertEquals(12, item.getStat(ItemStat.ATTACK_DAMAGE));
+        assertArrayEquals(ITEM_STACK, item.getItemStackBytes());
+        assertEquals(Set.of("sword"), dirtyIds);
+        assertEquals(Set.of("sword"), Set.copyOf(itemRegistry.getIds(null, Rarity.EPIC)));
+    }
+
+    /**
+     * Tests that the creation of an Item, which was never written, starts at the first version.
+     */
+    @Test
+    void createUnstoredItem() throws IOException {
+        final @NonNull ItemJournal journal = openJournal();
+
+        journal.appendCreate("helmet", ItemType.HELMET, Rarity.COMMON, ITEM_STACK);
+        journal.appendStat("helmet", ItemStat.DEFENSE, 3);
+        journal.appendStat("helmet", ItemStat.DEFENSE, 0);
+        journal.close();
+
+        final @NonNull ItemRegistry itemRegistry = new ItemRegistry();
+
+        assertEquals(3, replay(itemRegistry));
+
+        final @NonNull Item item = Objects.requireNonNull(itemRegistry.getItemFromId("helmet"));
+
+        assertEquals(0, item.getVersion());
+        assertFalse(item.hasStat(ItemStat.DEFENSE));
+        assertEquals(Set.of("helmet"), dirtyIds);
+    }
+
+    /**
+     * Tests that a deletion is replayed and that later entries of the deleted Item are skipped.
+     */
+    @Test
+    void deleteSkipsLaterEdits() throws IOException {
+        final @NonNull ItemJournal journal = openJournal();
+
+        journal.appendDelete("sword");
+        journal.appendStat("sword", ItemStat.ATTACK_DAMAGE, 12);
+        journal.close();
+
+        final @NonNull ItemRegistry itemRegistry = new ItemRegistry();
+
+        itemRegistry.registerItem(new Item("sword", ItemType.MELEE_WEAPON, Rarity.RARE, LazyItemStack.ofBytes(ITEM_STACK, false)));
+
+        assertEquals(2, replay(itemRegistry));
+        assertFalse(itemRegistry.isIdValid("sword"));
+        assertTrue(dirtyIds.isEmpty());
+        assertEquals(Set.of("sword"), deletedIds);
+    }
+
+    /**
+     * Opens a new journal in the temporary folder, so entries can be appended to it.
+     *
+     * @return the opened ItemJournal
+     */
+    private @NonNull ItemJournal openJournal() throws IOException {
+        final @NonNull ItemJournal journal = new ItemJournal(folder.resolve("items.journal"), Logger.getAnonymousLogger());
+        final @NonNull ItemJournalReplay replay = new ItemJournalReplay(
+                new ItemRegistry(),
+                LazyItemStack.Mode.LAZY,
+                id -> {
+                },
+                id -> {
+                }
+        );
+
+        assertEquals(0, journal.open(replay, 1000));
+        return journal;
+    }
+
+    /**
+     * Reopens the journal in the temporary folder and replays it into an {@link ItemRegistry}.
+     *
+     * @param itemRegistry the ItemRegistry
+     * @return the amount of replayed entries
+     */
+    private int replay(final @NonNull ItemRegistry itemRegistry) throws IOException {
+        final @NonNull ItemJournal journal = new ItemJournal(folder.resolve("items.journal"), Logger.getAnonymousLogger());
+
+        try {
+            return journal.open(
+                    new ItemJournalReplay(itemRegistry, LazyItemStack.Mode.LAZY, dirtyIds::add, item -> deletedIds.add(item.getId())),
+                    1000
+            );
+        } finally {
+            journal.close();
+        }
+    }
+}
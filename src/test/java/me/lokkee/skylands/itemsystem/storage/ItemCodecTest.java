@@ -0,0 +1,177 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the round trips and the dictionary training of the {@link ItemCodec}.
+ */
+final class ItemCodecTest {
+
+    /**
+     * The length of the grams, which the training collects.
+     */
+    private static final int GRAM_LENGTH = 12;
+
+    /**
+     * Tests that deflated payloads decode to the same NBT.
+     */
+    @Test
+    void deflateRoundTrip() throws IOException {
+        final @NonNull ItemCodec codec = new ItemCodec(ItemCodec.Mode.DEFLATE, 6);
+
+        for (final byte @NonNull [] sample : samples(20)) {
+            final byte @NonNull [] encoded = codec.encode(sample);
+
+            assertEquals(ItemCodec.FORMAT_DEFLATE, encoded[0]);
+            assertArrayEquals(gunzip(sample), gunzip(codec.decode(encoded)));
+        }
+    }
+
+    /**
+     * Tests that payloads, which are deflated with a trained dictionary,
+     * decode to the same NBT and are smaller than those without it.
+     */
+    @Test
+    void dictionaryRoundTrip() throws IOException {
+        final @NonNull List<byte[]> samples = samples(50);
+        final byte @NonNull [] dictionary = ItemCodec.train(samples, 1024);
+        final @NonNull ItemCodec plain = new ItemCodec(ItemCodec.Mode.DEFLATE, 6);
+        final @NonNull ItemCodec codec = new ItemCodec(ItemCodec.Mode.DICTIONARY, 6);
+
+        codec.setActiveDictionary(codec.addDictionary(dictionary));
+
+        int plainSize = 0;
+        int dictionarySize = 0;
+
+        for (final byte @NonNull [] sample : samples) {
+            final byte @NonNull [] encoded = codec.encode(sample);
+
+            assertEquals(ItemCodec.FORMAT_DICTIONARY, encoded[0]);
+            assertArrayEquals(gunzip(sample), gunzip(codec.decode(encoded)));
+
+            plainSize += plain.encode(sample).length;
+            dictionarySize += encoded.length;
+        }
+        assertTrue(dictionarySize < plainSize, "The dictionary does not improve the compression.");
+    }
+
+    /**
+     * Tests that a payload, whose dictionary is unknown, is rejected with the id of the dictionary,
+     * and is decoded once the dictionary was added.
+     */
+    @Test
+    void unknownDictionary() throws IOException {
+        final @NonNull List<byte[]> samples = samples(10);
+        final byte @NonNull [] dictionary = ItemCodec.train(samples, 512);
+        final @NonNull ItemCodec codec = new ItemCodec(ItemCodec.Mode.DICTIONARY, 6);
+        final int id = codec.addDictionary(dictionary);
+
+        codec.setActiveDictionary(id);
+
+        final byte @NonNull [] encoded = codec.encode(samples.get(0));
+        final @NonNull ItemCodec other = new ItemCodec(ItemCodec.Mode.DICTIONARY, 6);
+
+        assertEquals(id, assertThrows(UnknownDictionaryException.class, () -> other.decode(encoded)).getDictionaryId());
+        assertFalse(other.hasDictionary(id));
+
+        other.addDictionary(dictionary);
+
+        assertArrayEquals(gunzip(samples.get(0)), gunzip(other.decode(encoded)));
+    }
+
+    /**
+     * Tests that a trained dictionary respects its size and contains no shifted
+     * copies of its own grams, in the order in which they were collected.
+     */
+    @Test
+    void trainSkipsShiftedGrams() {
+        final byte @NonNull [] dictionary = ItemCodec.train(samples(50), 2048);
+
+        assertTrue(dictionary.length <= 2048);
+        assertEquals(0, dictionary.length % GRAM_LENGTH);
+
+        final @NonNull String text = new String(dictionary, StandardCharsets.ISO_8859_1);
+        final @NonNull Set<String> halves = new HashSet<>();
+
+        for (int i = text.length() - GRAM_LENGTH; i >= 0; i -= GRAM_LENGTH) {
+            final @NonNull String gram = text.substring(i, i + GRAM_LENGTH);
+
+            assertFalse(halves.contains(gram.substring(0, GRAM_LENGTH / 2)), "Shifted gram " + gram);
+            assertFalse(halves.contains(gram.substring(GRAM_LENGTH / 2)), "Shifted gram " + gram);
+
+            for (int j = 0; j + GRAM_LENGTH / 2 <= GRAM_LENGTH; j++) {
+                halves.add(gram.substring(j, j + GRAM_LENGTH / 2));
+            }
+        }
+    }
+
+    /**
+     * Creates GZIP compressed samples, which share a structure like the NBT of items.
+     *
+     * @param count the amount of samples
+     * @return the samples
+     */
+    private static @NonNull List<byte[]> samples(final int count) {
+        final @NonNull List<byte[]> samples = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            samples.add(gzip((
+                    "{id:\"minecraft:diamond_sword\",Count:1b,tag:{display:{Name:'{\"text\":\"Blade "
+                            + i
+                            + "\",\"italic\":false}',Lore:['{\"text\":\"Damage: "
+                            + (i * 7 % 100)
+                            + "\",\"color\":\"gray\"}']},Enchantments:[{id:\"minecraft:sharpness\",lvl:"
+                            + (i % 5)
+                            + "s}],HideFlags:63}}"
+            ).getBytes(StandardCharsets.ISO_8859_1)));
+        }
+        return samples;
+    }
+
+    /**
+     * Compresses bytes with GZIP, like the serialized bytes of an item stack.
+     *
+     * @param data the uncompressed bytes
+     * @return the compressed bytes
+     */
+    private static byte @NonNull [] gzip(final byte @NonNull [] data) {
+        final @NonNull ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (final @NonNull GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (final @NonNull IOException e) {
+            throw new RuntimeException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Uncompresses GZIP compressed bytes.
+     *
+     * @param data the compressed bytes
+     * @return the uncompressed bytes
+     */
+    private static byte @NonNull [] gunzip(final byte @NonNull [] data) throws IOException {
+        try (final @NonNull GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.core.database.Migration;
+import me.lokkee.skylands.itemsystem.ItemStat;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link ItemSchema} migrations on an in-memory H2 database in the MySQL mode.
+ */
+final class ItemSchemaTest {
+
+    /**
+     * The {@link Connection} to the in-memory database.
+     */
+    private Connection connection;
+
+    /**
+     * Opens a new in-memory database.
+     */
+    @BeforeEach
+    void open() throws SQLException {
+        connection = DriverManager.getConnection(
+                "jdbc:h2:mem:" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE"
+        );
+    }
+
+    /**
+     * Closes the in-memory database.
+     */
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Tests that the stat rows are packed into the stats column and can be packed again,
+     * after the migration failed once the column was already added.
+     */
+    @Test
+    void packStatsTwice() throws SQLException {
+        migrate(1, 6);
+
+        try (final @NonNull Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO item_data (id, type, rarity, itemstack) "
+                    + "VALUES ('sword', 'MELEE_WEAPON', 'RARE', X'00'), ('helmet', 'HELMET', 'COMMON', X'00')");
+            statement.executeUpdate("INSERT INTO itemstat_data (id, stat, value) "
+                    + "VALUES ('sword', 'ATTACK_DAMAGE', 12), ('sword', 'CRIT_CHANCE', 5)");
+        }
+        migrate(7, 7);
+
+        try (final @NonNull Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO itemstat_data (id, stat, value) VALUES ('helmet', 'DEFENSE', 3)");
+            statement.executeUpdate("UPDATE item_data SET stats = NULL WHERE id = 'helmet'");
+        }
+        migrate(7, 7);
+
+        final @NonNull Map<String, Map<ItemStat, Double>> stats = readStats();
+
+        assertEquals(Map.of(ItemStat.ATTACK_DAMAGE, 12.0, ItemStat.CRIT_CHANCE, 5.0), stats.get("sword"));
+        assertEquals(Map.of(ItemStat.DEFENSE, 3.0), stats.get("helmet"));
+        assertEquals(0, count("itemstat_data"));
+    }
+
+    /**
+     * Tests that all migrations apply in order on an empty database and leave no legacy stat table behind.
+     */
+    @Test
+    void migrateAll() throws SQLException {
+        migrate(1, ItemSchema.MIGRATIONS.get(ItemSchema.MIGRATIONS.size() - 1).version());
+
+        assertEquals(0, count("item_data"));
+        assertFalse(hasTable("itemstat_data"));
+    }
+
+    /**
+     * Tests that the legacy stat table is dropped after its rows were packed.
+     */
+    @Test
+    void dropLegacyStatTable() throws SQLException {
+        migrate(1, 6);
+
+        try (final @NonNull Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO item_data (id, type, rarity, itemstack) "
+                    + "VALUES ('sword', 'MELEE_WEAPON', 'RARE', X'00')");
+            statement.executeUpdate("INSERT INTO itemstat_data (id, stat, value) VALUES ('sword', 'ATTACK_DAMAGE', 12)");
+        }
+        assertTrue(hasTable("itemstat_data"));
+
+        migrate(7, 10);
+
+        assertFalse(hasTable("itemstat_data"));
+        assertEquals(Map.of(ItemStat.ATTACK_DAMAGE, 12.0), readStats().get("sword"));
+    }
+
+    /**
+     * Applies the {@link Migration}s of a range of versions.
+     *
+     * @param from the first version
+     * @param to   the last version
+     */
+    private void migrate(final int from, final int to) throws SQLException {
+        for (final @NonNull Migration migration : ItemSchema.MIGRATIONS) {
+            if (migration.version() >= from && migration.version() <= to) {
+                migration.action().apply(connection);
+            }
+        }
+    }
+
+    /**
+     * Reads the packed stats of all items.
+     *
+     * @return the stats by the item ids
+     */
+    private @NonNull Map<String, Map<ItemStat, Double>> readStats() throws SQLException {
+        final @NonNull Map<String, Map<ItemStat, Double>> stats = new HashMap<>();
+
+        try (final @NonNull PreparedStatement ps = connection.prepareStatement("SELECT id, stats FROM item_data");
+             final @NonNull ResultSet rs = ps.executeQuery()
+        ) {
+            while (rs.next()) {
+                stats.put(rs.getString("id"), ItemStatPacking.unpack(rs.getBytes("stats")));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Checks whether a table exists.
+     *
+     * @param table the name of the table
+     * @return whether the table exists
+     */
+    private boolean hasTable(final @NonNull String table) throws SQLException {
+        try (final @NonNull ResultSet rs = connection.getMetaData().getTables(null, null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Counts the rows of a table.
+     *
+     * @param table the name of the table
+     * @return the amount of rows
+     */
+    private int count(final @NonNull String table) throws SQLException {
+        try (final @NonNull Statement statement = connection.createStatement();
+             final @NonNull ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)
+        ) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.itemsystem.ItemStat;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the round trips of the {@link ItemStatPacking}.
+ */
+final class ItemStatPackingTest {
+
+    /**
+     * Tests that no stats pack to the bare header.
+     */
+    @Test
+    void emptyRoundTrip() {
+        final byte @NonNull [] packed = ItemStatPacking.pack(Map.of());
+
+        assertEquals(5, packed.length);
+        assertEquals(Map.of(), ItemStatPacking.unpack(packed));
+    }
+
+    /**
+     * Tests that some stats unpack to the same values.
+     */
+    @Test
+    void partialRoundTrip() {
+        final @NonNull Map<ItemStat, Double> stats = new EnumMap<>(ItemStat.class);
+
+        stats.put(ItemStat.DEFENSE, 12.5);
+        stats.put(ItemStat.ATTACK_DAMAGE, -3.0);
+        stats.put(ItemStat.SPEED, 0.25);
+
+        final byte @NonNull [] packed = ItemStatPacking.pack(stats);
+
+        assertEquals(5 + 3 * Double.BYTES, packed.length);
+        assertEquals(stats, ItemStatPacking.unpack(packed));
+    }
+
+    /**
+     * Tests that all stats unpack to the same values.
+     */
+    @Test
+    void fullRoundTrip() {
+        final @NonNull Map<ItemStat, Double> stats = new EnumMap<>(ItemStat.class);
+
+        for (final @NonNull ItemStat stat : ItemStat.values()) {
+            stats.put(stat, stat.ordinal() * 1.5 + 1);
+        }
+        assertEquals(stats, ItemStatPacking.unpack(ItemStatPacking.pack(stats)));
+    }
+
+    /**
+     * Tests that bytes of an unknown format or truncated bytes are rejected.
+     */
+    @Test
+    void invalidBytes() {
+        final byte @NonNull [] packed = ItemStatPacking.pack(Map.of(ItemStat.MANA, 4.0));
+
+        packed[0] = 9;
+
+        assertThrows(IllegalArgumentException.class, () -> ItemStatPacking.unpack(packed));
+        assertThrows(IllegalArgumentException.class, () -> ItemStatPacking.unpack(new byte[]{1, 0, 0}));
+    }
+}
@@ -0,0 +1,71 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests how the {@link ItemWriteBehind} follows the revision of the {@link ItemStore}.
+ */
+final class ItemWriteBehindTest {
+
+    /**
+     * Tests that a single write advances the revision by one.
+     */
+    @Test
+    void advanceBySingleWrite() {
+        assertEquals(8, ItemWriteBehind.advanceRevision(7, List.of(8L)));
+    }
+
+    /**
+     * Tests that the parallel writes on shutdown advance the revision,
+     * regardless of the order in which they finished.
+     */
+    @Test
+    void advanceByParallelWrites() {
+        assertEquals(11, ItemWriteBehind.advanceRevision(7, List.of(10L, 8L, 11L, 9L)));
+    }
+
+    /**
+     * Tests that the revision stays unchanged without writes.
+     */
+    @Test
+    void advanceByNoWrites() {
+        assertEquals(7, ItemWriteBehind.advanceRevision(7, List.of()));
+    }
+
+    /**
+     * Tests that the revision becomes unknown, if someone else wrote in between.
+     */
+    @Test
+    void foreignWriteInBetween() {
+        assertEquals(-1, ItemWriteBehind.advanceRevision(7, List.of(9L)));
+        assertEquals(-1, ItemWriteBehind.advanceRevision(7, List.of(8L, 10L, 11L)));
+    }
+
+    /**
+     * Tests that an unknown revision stays unknown.
+     */
+    @Test
+    void unknownRevision() {
+        assertEquals(-1, ItemWriteBehind.advanceRevision(-1, List.of(0L)));
+    }
+
+    /**
+     * Tests the revisions, which the {@link MemoryItemStore} returns for parallel writes
+     * of disjoint parts, as they are written on shutdown.
+     */
+    @Test
+    void advanceByStoreWrites() {
+        final @NonNull MemoryItemStore store = new MemoryItemStore();
+        final long revision = store.getRevision();
+        final long first = store.write(List.of(), Map.of("a", 0L)).revision();
+        final long second = store.write(List.of(), Map.of("b", 0L)).revision();
+
+        assertEquals(revision + 2, ItemWriteBehind.advanceRevision(revision, List.of(second, first)));
+    }
+}
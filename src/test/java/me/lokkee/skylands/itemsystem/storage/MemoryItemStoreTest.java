@@ -0,0 +1,67 @@
+package me.lokkee.skylands.itemsystem.storage;
+
+import me.lokkee.skylands.core.Rarity;
+import me.lokkee.skylands.itemsystem.ItemType;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests how the {@link MemoryItemStore} detects concurrent changes of other servers.
+ */
+final class MemoryItemStoreTest {
+
+    /**
+     * Tests that a versioned write of an Item, which was deleted meanwhile, is a conflict and does not recreate it.
+     */
+    @Test
+    void writeOfDeletedItemConflicts() {
+        final @NonNull MemoryItemStore store = new MemoryItemStore();
+
+        store.write(List.of(record("sword", 0)), Map.of());
+        store.write(List.of(), Map.of("sword", 1L));
+
+        assertEquals(List.of("sword"), store.write(List.of(record("sword", 1)), Map.of()).conflicts());
+        assertTrue(store.readItems(List.of("sword")).isEmpty());
+    }
+
+    /**
+     * Tests that a deletion of an Item, which was changed meanwhile, is a conflict and keeps it.
+     */
+    @Test
+    void staleDeletionConflicts() {
+        final @NonNull MemoryItemStore store = new MemoryItemStore();
+
+        store.write(List.of(record("sword", 0)), Map.of());
+        store.write(List.of(record("sword", 1)), Map.of());
+
+        assertEquals(List.of("sword"), store.write(List.of(), Map.of("sword", 1L)).conflicts());
+        assertEquals(2, store.readItems(List.of("sword")).get(0).version());
+    }
+
+    /**
+     * Tests that a deletion of an Item, which is not stored anymore, is no conflict.
+     */
+    @Test
+    void deletionOfMissingItemSucceeds() {
+        final @NonNull MemoryItemStore store = new MemoryItemStore();
+
+        assertTrue(store.write(List.of(), Map.of("sword", 3L)).conflicts().isEmpty());
+    }
+
+    /**
+     * Creates an {@link ItemRecord}.
+     *
+     * @param id      the id of the Item
+     * @param version the version of the Item
+     * @return the ItemRecord
+     */
+    private static @NonNull ItemRecord record(final @NonNull String id, final long version) {
+        return new ItemRecord(id, ItemType.MELEE_WEAPON, Rarity.COMMON, new byte[]{1, 2, 3}, Map.of(), version);
+    }
+}